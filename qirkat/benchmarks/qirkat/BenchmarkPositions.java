@@ -0,0 +1,28 @@
+package qirkat;
+
+/** The positions on which the benchmarks are run, by name.  They are
+ *  among those searched by the 'bench' command (see Bench).
+ *  @author Noah Alcus
+ */
+class BenchmarkPositions {
+
+    /** Names of the positions, for use in @Param annotations. */
+    static final String
+        OPENING = "opening",
+        MIDGAME = "midgame",
+        MULTIJUMP = "multijump";
+
+    /** Return a new Board holding the position named NAME (see
+     *  Bench.POSITIONS). */
+    static Board board(String name) {
+        return Bench.board(name);
+    }
+
+    /** Return a new Position holding the position named NAME. */
+    static Position position(String name) {
+        Position result = new Position();
+        board(name).copyPosition(result);
+        return result;
+    }
+
+}
@@ -0,0 +1,91 @@
+package qirkat;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks of move generation and of making and undoing moves on a
+ *  Board.
+ *  @author Noah Alcus
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardBenchmark {
+
+    /** Name of the position measured (see BenchmarkPositions). */
+    @Param({ BenchmarkPositions.OPENING, BenchmarkPositions.MIDGAME,
+             BenchmarkPositions.MULTIJUMP })
+    public String position;
+
+    /** Set up the board for POSITION and its legal moves. */
+    @Setup
+    public void setUp() {
+        _board = BenchmarkPositions.board(position);
+        _legal = _board.getMoves().toArray(new Move[0]);
+        _next = 0;
+    }
+
+    /** Generate the codes of the legal moves into a reused list. */
+    @Benchmark
+    public int getMoveCodes() {
+        _board.getMoves(_codes);
+        return _codes.size();
+    }
+
+    /** Generate the legal moves as a new list of Moves. */
+    @Benchmark
+    public ArrayList<Move> getMoves() {
+        return _board.getMoves();
+    }
+
+    /** Count the legal moves. */
+    @Benchmark
+    public int countMoves() {
+        return _board.countMoves();
+    }
+
+    /** Determine whether the player to move can capture. */
+    @Benchmark
+    public boolean jumpPossible() {
+        return _board.jumpPossible();
+    }
+
+    /** Make one of the legal moves, in rotation, and undo it. */
+    @Benchmark
+    public long makeMoveUndo() {
+        Move move = _legal[_next];
+        _next = (_next + 1) % _legal.length;
+        _board.makeMove(move);
+        long key = _board.key();
+        _board.undo();
+        return key;
+    }
+
+    /** The board measured. */
+    private Board _board;
+
+    /** The legal moves on _board. */
+    private Move[] _legal;
+
+    /** Index in _legal of the next move to make. */
+    private int _next;
+
+    /** Reused buffer for move codes. */
+    private final MoveList _codes = new MoveList();
+
+}
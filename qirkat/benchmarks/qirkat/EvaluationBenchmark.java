@@ -0,0 +1,48 @@
+package qirkat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks of the AI's static evaluation.
+ *  @author Noah Alcus
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EvaluationBenchmark {
+
+    /** Name of the position measured (see BenchmarkPositions). */
+    @Param({ BenchmarkPositions.OPENING, BenchmarkPositions.MIDGAME,
+             BenchmarkPositions.MULTIJUMP })
+    public String position;
+
+    /** Set up the position measured. */
+    @Setup
+    public void setUp() {
+        _position = BenchmarkPositions.position(position);
+    }
+
+    /** Evaluate the position statically. */
+    @Benchmark
+    public int staticScore() {
+        return AI.staticScore(_position);
+    }
+
+    /** The position evaluated. */
+    private Position _position;
+
+}
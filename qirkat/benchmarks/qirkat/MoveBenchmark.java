@@ -0,0 +1,60 @@
+package qirkat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks of finding and parsing Moves.
+ *  @author Noah Alcus
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoveBenchmark {
+
+    /** Find a single step. */
+    @Benchmark
+    public Move moveStep() {
+        return Move.move('c', '2', 'c', '3', null);
+    }
+
+    /** Find a multi-jump from its first jump and the rest. */
+    @Benchmark
+    public Move moveJump() {
+        return Move.move('c', '1', 'a', '3', _tail);
+    }
+
+    /** Parse a single step. */
+    @Benchmark
+    public Move parseStep() {
+        return Move.parseMove(_step);
+    }
+
+    /** Parse a long multi-jump. */
+    @Benchmark
+    public Move parseJump() {
+        return Move.parseMove(_jump);
+    }
+
+    /** Text of a single step.  It is a field, so that it is not treated
+     *  as a constant. */
+    private String _step = "c2-c3";
+
+    /** Text of a multi-jump. */
+    private String _jump = "c1-a3-c5-c3-c1-e3-c5";
+
+    /** The multi-jump _jump without its first jump. */
+    private Move _tail = Move.parseMove("a3-c5-c3-c1-e3-c5");
+
+}
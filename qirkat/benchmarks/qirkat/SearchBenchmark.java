@@ -0,0 +1,65 @@
+package qirkat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks of fixed-depth searches by the AI.  The static
+ *  evaluation is measured by EvaluationBenchmark, apart from the costly
+ *  setup of each search here.
+ *  @author Noah Alcus
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchBenchmark {
+
+    /** Name of the position measured (see BenchmarkPositions). */
+    @Param({ BenchmarkPositions.OPENING, BenchmarkPositions.MIDGAME,
+             BenchmarkPositions.MULTIJUMP })
+    public String position;
+
+    /** Depth of the searches measured. */
+    @Param({ "8", "12" })
+    public int depth;
+
+    /** Set up a new AI for each search, so that none benefits from the
+     *  transposition table left by the one before. */
+    @Setup(Level.Invocation)
+    public void setUpSearch() {
+        SearchOptions options = new SearchOptions();
+        options.setTimeBudget(0);
+        options.setHashMegabytes(HASH_MEGABYTES);
+        options.setThreads(1);
+        Board board = BenchmarkPositions.board(position);
+        Game game = new Game(board, null, new TextReporter(), options);
+        _ai = new AI(game, board.whoseMove(), depth, options);
+    }
+
+    /** Search the position to the given depth. */
+    @Benchmark
+    public Move findMove() {
+        return _ai.myMove();
+    }
+
+    /** Size of each AI's transposition table. */
+    private static final int HASH_MEGABYTES = 4;
+
+    /** The AI that searches in findMove. */
+    private AI _ai;
+
+}
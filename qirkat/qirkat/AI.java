@@ -1,8 +1,16 @@
 package qirkat;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
 
 import static qirkat.PieceColor.*;
+import static qirkat.TranspositionTable.*;
+import static qirkat.Evaluation.PIECE_VALUE;
+import static qirkat.Evaluation.MOBILITY_VALUE;
 
 /** A Player that computes its own moves.
  *  @author Noah "submits at 11:57pm, style checks, submits at 11:59pm" Alcus
@@ -12,193 +20,911 @@ class AI extends Player {
     /** Maximum minimax search depth before going to static evaluation. */
     private int MAX_DEPTH = 20;
     /** A position magnitude indicating a win (for white if positive, black
-     *  if negative). */
-    private static final int WINNING_VALUE = Integer.MAX_VALUE - 1;
+     *  if negative).  The search scores a win found PLY moves from its
+     *  root as WINNING_VALUE - PLY, so as to prefer quicker wins and
+     *  slower losses. */
+    static final int WINNING_VALUE = Integer.MAX_VALUE - 1;
     /** A magnitude greater than a normal value. */
     private static final int INFTY = Integer.MAX_VALUE;
 
-    /** A new AI for GAME that will play MYCOLOR. */
+    /** A new AI for GAME that will play MYCOLOR, using GAME's search
+     *  options. */
+    AI(Game game, PieceColor myColor) {
+        this(game, myColor, game.options().maxDepth(), game.options());
+    }
+
+    /** A new AI for GAME that will play MYCOLOR, searching no deeper than
+     *  _MAXDEPTH and otherwise using GAME's search options. */
     AI(Game game, PieceColor myColor, int _maxDepth) {
+        this(game, myColor, _maxDepth, game.options());
+    }
+
+    /** A new AI for GAME that will play MYCOLOR, searching no deeper than
+     *  _MAXDEPTH and otherwise as directed by OPTIONS. */
+    AI(Game game, PieceColor myColor, int _maxDepth, SearchOptions options) {
         super(game, myColor);
         MAX_DEPTH = _maxDepth;
+        _timeBudget = options.timeBudget();
+        _ponder = options.ponder();
+        if (options.hashMegabytes() > 0) {
+            _table = new TranspositionTable(options.hashMegabytes());
+        }
+        if (options.threads() > 1) {
+            _pool = new ForkJoinPool(options.threads());
+        }
+        if (options.tablebases() != null) {
+            _tablebases = Tablebases.open(options.tablebases());
+        }
+        if (options.book() != null) {
+            _book = OpeningBook.open(options.book());
+        }
     }
 
     @Override
     Move myMove() {
 
         Main.startTiming();
+        stopPondering();
+        if (_ponderDepth > 0) {
+            Main.reportStats("[pondered to depth %d, reply %s]",
+                             _ponderDepth,
+                             board().key() == _predictedKey
+                             ? "predicted" : "not predicted");
+        }
+        for (Searcher searcher : _searchers) {
+            searcher.newSearch();
+        }
+        _depthReached = 0;
         Move move = findMove();
         Main.endTiming();
+        long nodes, cutoffs, firstCutoffs, tablebaseHits;
+        nodes = cutoffs = firstCutoffs = tablebaseHits = 0;
+        for (Searcher searcher : _searchers) {
+            nodes += searcher._nodes;
+            cutoffs += searcher._cutoffs;
+            firstCutoffs += searcher._firstCutoffs;
+            tablebaseHits += searcher._tablebaseHits;
+        }
+        _lastNodes = nodes;
+        _lastCutoffs = cutoffs;
+        _lastDepth = _depthReached;
+        Main.reportStats("[depth %d, %d nodes, %d cutoffs (%.1f%% on first "
+                         + "move)]", _depthReached, nodes, cutoffs,
+                         cutoffs == 0 ? 0.0 : 100.0 * firstCutoffs / cutoffs);
+        if (_table != null) {
+            Main.reportStats("[table: %d probes, %.1f%% hits]",
+                             _table.probes(), _table.hitRate());
+        }
+        if (_tablebases != null) {
+            Main.reportStats("[tablebases: %d hits]", tablebaseHits);
+        }
         if (move == null) {
             board().gameOver();
+        } else if (_ponder) {
+            startPondering(move);
         }
         return move;
     }
 
+    @Override
+    void stop() {
+        stopPondering();
+        if (_pool != null) {
+            _pool.shutdown();
+        }
+    }
+
+    /** Return true iff I am searching on my opponent's time. */
+    boolean pondering() {
+        return _ponderThread != null;
+    }
+
+    /** Start searching, on a background thread, the position to which
+     *  MOVE leads from the current one, unless that ends the game.  The
+     *  search fills my transposition table with the values and best moves
+     *  of my opponent's replies and of my answers to them, which my next
+     *  search will find.  It continues until stopped or reaching
+     *  MAX_DEPTH, recording the reply it expects after each depth
+     *  completes. */
+    private void startPondering(Move move) {
+        Position b = _main._board;
+        board().copyPosition(b);
+        b.makeMove(move);
+        _ponderDepth = 0;
+        if (b.gameOver()) {
+            return;
+        }
+        for (Searcher searcher : _searchers) {
+            searcher.newSearch();
+        }
+        _deadline = Long.MAX_VALUE;
+        _stopped = false;
+        _depthReached = 0;
+        _lastFoundMove = null;
+        _ponderThread = new Thread(() -> {
+            int value = 0;
+            for (int depth = 1; depth <= MAX_DEPTH; depth += 1) {
+                value = aspirate(b, depth, value);
+                if (_stopped) {
+                    break;
+                }
+                b.makeMove(_lastFoundMove);
+                _predictedKey = b.key();
+                b.undo();
+                _depthReached = _ponderDepth = depth;
+            }
+        }, "qirkat-ponder");
+        _ponderThread.setDaemon(true);
+        _ponderThread.start();
+    }
+
+    /** Return the depth of the last search completed while pondering, or
+     *  0 if none. */
+    int ponderDepth() {
+        return _ponderDepth;
+    }
+
+    /** Return the key of the position that my pondering expects after my
+     *  opponent's reply, as of the last search it completed. */
+    long predictedKey() {
+        return _predictedKey;
+    }
+
+    /** Stop the search started by startPondering, if any, and wait for it
+     *  to finish. */
+    private void stopPondering() {
+        if (_ponderThread != null) {
+            _stopped = true;
+            try {
+                _ponderThread.join();
+            } catch (InterruptedException excp) {
+                Thread.currentThread().interrupt();
+            }
+            _ponderThread = null;
+        }
+    }
+
+    /** Return the number of positions visited while choosing my last
+     *  move. */
+    long nodes() {
+        return _lastNodes;
+    }
+
+    /** Return the number of beta cutoffs while choosing my last move. */
+    long cutoffs() {
+        return _lastCutoffs;
+    }
+
+    /** Return the value of the position from which I chose my last move,
+     *  for me, as found by the deepest search that completed (or as
+     *  recorded in my opening book). */
+    int value() {
+        return _lastValue;
+    }
+
+    /** Search all captures in quiescence, without delta pruning (see
+     *  Searcher.quiesce), so that my values are exactly those of a full
+     *  alpha-beta search of the same depth. */
+    void disableDeltaPruning() {
+        _deltaPruning = false;
+    }
+
+    /** Return the depth of the deepest search that completed while
+     *  choosing my last move, or 0 if I chose it without searching. */
+    int depthReached() {
+        return _lastDepth;
+    }
+
     @Override
     boolean isAI() {
         return true;
     }
 
     /** Return a move for me from the current position, assuming there
-     *  is a move. */
+     *  is a move.  Searches to increasing depths until reaching MAX_DEPTH
+     *  or exhausting my time budget, and returns the best move found by
+     *  the deepest search that completed.  Each search starts with the
+     *  best moves found by the previous one, and expects a value near
+     *  that of the previous one. */
     private Move findMove() {
-        Board b = new Board(board());
-        if (myColor() == WHITE) {
-            findMove(b, MAX_DEPTH, true, 1, -INFTY, INFTY);
+        Position b = _main._board;
+        board().copyPosition(b);
+        if (_table != null) {
+            _table.newSearch();
+        }
+        ArrayList<Move> moves = b.getMoves();
+        _lastValue = 0;
+        if (moves.size() <= 1) {
+            return moves.isEmpty() ? null : moves.get(0);
+        }
+        Move bookMove = bookMove(b);
+        if (bookMove != null) {
+            return bookMove;
+        }
+        if (_timeBudget > 0) {
+            _deadline = System.currentTimeMillis() + _timeBudget;
         } else {
-            findMove(b, MAX_DEPTH, true, -1, -INFTY, INFTY);
+            _deadline = Long.MAX_VALUE;
+        }
+        _stopped = false;
+        _lastFoundMove = null;
+        Move best = moves.get(0);
+        int value = 0;
+        for (int depth = 1; depth <= MAX_DEPTH; depth += 1) {
+            value = aspirate(b, depth, value);
+            if (_stopped) {
+                break;
+            }
+            best = _lastFoundMove;
+            _lastValue = value;
+            _depthReached = depth;
         }
-        return _lastFoundMove;
+        return best;
     }
 
-    /** The move found by the last call to one of the ...FindMove methods
-     *  below. */
+    /** Return the move recorded in my opening book for BOARD, or null if
+     *  I have no book, or it has no legal move for BOARD.  The check for
+     *  legality guards against distinct positions with the same key. */
+    private Move bookMove(Position board) {
+        if (_book == null) {
+            return null;
+        }
+        int entry = _book.find(board.key());
+        if (entry == OpeningBook.NOT_FOUND) {
+            return null;
+        }
+        Move move = Move.unpack(_book.move(entry));
+        if (move == null || !board.legalMove(move)) {
+            return null;
+        }
+        _lastValue = _book.value(entry);
+        Main.reportStats("[book move, value %d]", _lastValue);
+        return move;
+    }
+
+    /** Search BOARD to DEPTH as for findMove(BOARD, DEPTH, ...), within
+     *  an aspiration window around GUESS, and return its value.  If the
+     *  value proves to lie outside the window, the search is repeated
+     *  with that side of the window opened. */
+    private int aspirate(Position board, int depth, int guess) {
+        int alpha, beta;
+        if (depth <= ASPIRATION_DEPTH || Math.abs(guess) > WINNING_BOUND) {
+            alpha = -INFTY;
+            beta = INFTY;
+        } else {
+            alpha = guess - ASPIRATION_WINDOW;
+            beta = guess + ASPIRATION_WINDOW;
+        }
+        while (true) {
+            int value = findMove(board, depth, alpha, beta);
+            if (_stopped) {
+                return value;
+            }
+            if (value <= alpha) {
+                alpha = -INFTY;
+            } else if (value >= beta) {
+                beta = INFTY;
+            } else {
+                return value;
+            }
+            if (_rootBest != null) {
+                _lastFoundMove = _rootBest;
+            }
+        }
+    }
+
+    /** The move found by the last call to findMove. */
     private Move _lastFoundMove;
 
-    /** Find a move from position BOARD and return its value, recording
-     *  the move found in _lastFoundMove iff SAVEMOVE. The move
-     *  should have maximal value or have value > BETA if SENSE==1,
-     *  and minimal value or value < ALPHA if SENSE==-1. Searches up to
-     *  DEPTH levels.  Searching at level 0 simply returns a static estimate
-     *  of the board value and does not set _lastMoveFound. */
-    private int findMove(Board board, int depth, boolean saveMove, int sense,
-                         int alpha, int beta) {
-        Move best;
-        best = null;
+    /** Find a move from position BOARD, searching up to DEPTH levels, and
+     *  return its value for the player to move.  The move found is
+     *  recorded in _lastFoundMove, and the previous value of
+     *  _lastFoundMove is searched first.  The value returned is exact if
+     *  it lies strictly between ALPHA and BETA, and is otherwise an upper
+     *  bound (if <= ALPHA) or lower bound (if >= BETA) on the true value,
+     *  in which case _lastFoundMove is not changed unless a move was found
+     *  whose value is at least BETA.
+     *
+     *  The first move is searched with the full window, and the others
+     *  with a null window to show that they are no better, as for
+     *  Searcher.search.  If I have a thread pool, the first move is
+     *  searched alone, and the remaining moves are then divided among the
+     *  pool's threads, each searching its own copy of BOARD.  The bounds
+     *  established by moves already searched are shared by those searched
+     *  later. */
+    private int findMove(Position board, int depth, int alpha, int beta) {
+        ArrayList<Move> moves = board.getMoves();
+        _main.probe(board, depth, 0, alpha, beta);
+        putFirst(moves, _main._hashMove);
+        putFirst(moves, _lastFoundMove);
+        _rootAlpha = alpha;
+        _rootBeta = beta;
+        _rootValue = -INFTY;
+        _rootBest = null;
+        searchRootMove(_main, board, moves.get(0), depth, true);
+        if (_pool == null || depth == 1) {
+            for (Move move : moves.subList(1, moves.size())) {
+                if (_stopped || _rootAlpha >= _rootBeta) {
+                    break;
+                }
+                searchRootMove(_main, board, move, depth, false);
+            }
+        } else {
+            ArrayList<Callable<Void>> tasks = new ArrayList<>();
+            for (Move move : moves.subList(1, moves.size())) {
+                tasks.add(() -> {
+                    if (_rootAlpha < _rootBeta) {
+                        Searcher worker = _workers.get();
+                        worker._board.copy(board);
+                        searchRootMove(worker, worker._board, move, depth,
+                                       false);
+                    }
+                    return null;
+                });
+            }
+            if (!_stopped && _rootAlpha < _rootBeta) {
+                _pool.invokeAll(tasks);
+            }
+        }
+
+        if (!_stopped && _rootBest != null) {
+            _lastFoundMove = _rootBest;
+        }
+
+        return _rootValue;
+    }
 
+    /** Using SEARCHER, search MOVE from position BOARD to DEPTH levels
+     *  within the current bounds at the root, and record its value.  If
+     *  FIRST, this is the first move searched, and gets the full window.
+     *  BOARD is restored afterwards. */
+    private void searchRootMove(Searcher searcher, Position board, Move move,
+                                int depth, boolean first) {
+        int alpha = _rootAlpha, beta = _rootBeta;
         int score;
-        if (this.myColor() == WHITE) {
-            score = alpha;
+        board.makeMove(move);
+        if (first) {
+            score = -searcher.search(board, depth - 1, 1, -beta, -alpha);
         } else {
-            score = beta;
+            score = -searcher.search(board, depth - 1, 1, -alpha - 1,
+                                     -alpha);
+            if (score > alpha && score < beta && !_stopped) {
+                score = -searcher.search(board, depth - 1, 1, -beta,
+                                         -alpha);
+            }
         }
-        ArrayList<Move> moves = board.getMoves();
-        for (Move move : moves) {
-            board.makeMove(move);
-            if (sense == 1) {
-                score = minimizer(board, depth - 1, alpha, beta, -sense);
-            } else {
-                score = maximizer(board, depth - 1, alpha, beta, -sense);
+        board.undo();
+        if (!_stopped) {
+            recordRootScore(move, score);
+        }
+    }
+
+    /** Record that MOVE from the root has value SCORE (or a bound on
+     *  it), updating the value of the root, and the best move and lower
+     *  bound at the root if it improves on them. */
+    private synchronized void recordRootScore(Move move, int score) {
+        if (score > _rootValue) {
+            _rootValue = score;
+            if (score > _rootAlpha) {
+                _rootAlpha = score;
+                _rootBest = move;
             }
-            board.undo();
-            if (myColor() == WHITE) {
-                if (score > alpha) {
-                    alpha = score;
-                    best = move;
+        }
+    }
+
+    /** Move MOVE, if it is not null and is in MOVES, to the front of
+     *  MOVES, keeping the others in order. */
+    private static void putFirst(ArrayList<Move> moves, Move move) {
+        if (move != null && moves.remove(move)) {
+            moves.add(0, move);
+        }
+    }
+
+
+    /** The state of one thread's part of a search: its copy of the board
+     *  being searched and its statistics. */
+    private class Searcher {
+
+        /** A new Searcher, whose statistics are included in those of
+         *  its AI. */
+        Searcher() {
+            _searchers.add(this);
+        }
+
+        /** Return true iff the current search has run out of time, in which
+         *  case its results are to be discarded.  The first iteration of a
+         *  search always runs to completion. */
+        private boolean outOfTime() {
+            if (!_stopped && _depthReached > 0
+                && (_nodes & TIME_CHECK_INTERVAL) == 0
+                && System.currentTimeMillis() > _deadline) {
+                _stopped = true;
+            }
+            return _stopped;
+        }
+
+        /** Return the value of BOARD for the player to move, which is PLY
+         *  moves from the root, searching DEPTH more levels (and then
+         *  using static valuation).  The value is exact if it lies
+         *  strictly between ALPHA and BETA.  Otherwise, it is an upper
+         *  bound (if <= ALPHA) or lower bound (if >= BETA) on the true
+         *  value.
+         *
+         *  This is a principal variation search: once one move has
+         *  raised ALPHA, each remaining move is first searched with the
+         *  null window ALPHA .. ALPHA + 1, which merely shows that it is
+         *  no better, and only searched fully if that fails. */
+        private int search(Position board, int depth, int ply,
+                           int alpha, int beta) {
+            if (depth <= 0) {
+                return quiesce(board, ply, alpha, beta);
+            }
+            _nodes += 1;
+            if (outOfTime()) {
+                return 0;
+            }
+            if (board.gameOver()) {
+                return -(WINNING_VALUE - ply);
+            }
+            int known = probeTablebases(board, ply);
+            if (known != NO_CUTOFF) {
+                return known;
+            }
+            int cutoff = probe(board, depth, ply, alpha, beta);
+            if (cutoff != NO_CUTOFF) {
+                return cutoff;
+            }
+            int alpha0 = alpha;
+            int bestScore = -INFTY;
+            Move best = null;
+            MoveList moves = moveList(ply);
+            board.getMoves(moves);
+            orderMoves(moves, ply);
+            for (int i = 0; i < moves.size(); i += 1) {
+                Move move = moves.move(i);
+                int score;
+                board.makeMove(move);
+                if (i == 0) {
+                    score = -search(board, depth - 1, ply + 1, -beta, -alpha);
+                } else {
+                    score = -search(board, depth - 1, ply + 1,
+                                    -alpha - 1, -alpha);
+                    if (score > alpha && score < beta) {
+                        score = -search(board, depth - 1, ply + 1,
+                                        -beta, -alpha);
+                    }
                 }
-            } else {
-                if (score < beta) {
-                    beta = score;
+                board.undo();
+                if (_stopped) {
+                    return 0;
+                }
+                if (score > bestScore) {
+                    bestScore = score;
                     best = move;
+                    alpha = Math.max(alpha, score);
+                }
+                if (alpha >= beta) {
+                    recordCutoff(move, i, ply, depth);
+                    store(board, depth, ply, LOWER, bestScore, move);
+                    return bestScore;
                 }
             }
-            if (alpha >= INFTY) {
-                break;
+            store(board, depth, ply, bestScore > alpha0 ? EXACT : UPPER,
+                  bestScore, best);
+            return bestScore;
+        }
+
+        /** Return the value of BOARD for the player to move, which is PLY
+         *  moves from the root, as for search, but searching only until
+         *  the end of the current exchange of captures.  A position with
+         *  no captures is quiet, and has its static value.  Since
+         *  captures are forced, the player to move in any other position
+         *  cannot simply accept the static value ("stand pat"), and so
+         *  all captures are searched, except that one that could not
+         *  raise ALPHA even if nothing were lost in return is assumed to
+         *  be worth no more than that (delta pruning). */
+        private int quiesce(Position board, int ply, int alpha, int beta) {
+            _nodes += 1;
+            if (outOfTime()) {
+                return 0;
             }
+            if (board.gameOver()) {
+                return -(WINNING_VALUE - ply);
+            }
+            int known = probeTablebases(board, ply);
+            if (known != NO_CUTOFF) {
+                return known;
+            }
+            int standPat = sense(board) * staticScore(board);
+            if (!board.jumpPossible()) {
+                return standPat;
+            }
+            int bestScore = -INFTY;
+            MoveList moves = moveList(ply);
+            board.getMoves(moves);
+            _hashMove = null;
+            orderMoves(moves, ply);
+            for (int i = 0; i < moves.size(); i += 1) {
+                Move move = moves.move(i);
+                int optimistic =
+                    standPat + move.jumps() * PIECE_VALUE + DELTA_MARGIN;
+                if (_deltaPruning && optimistic <= alpha) {
+                    bestScore = Math.max(bestScore, optimistic);
+                    break;
+                }
+                board.makeMove(move);
+                int score = -quiesce(board, ply + 1, -beta, -alpha);
+                board.undo();
+                if (_stopped) {
+                    return 0;
+                }
+                if (score > bestScore) {
+                    bestScore = score;
+                    alpha = Math.max(alpha, score);
+                }
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+            return bestScore;
         }
 
-        if (saveMove) {
-            _lastFoundMove = best;
+        /** Return the exact value of BOARD, which is PLY moves from the
+         *  root and not at the end of the game, as recorded in my
+         *  tablebases, or NO_CUTOFF if it is not in them.  A win or loss
+         *  is scored as if found at the ply on which the game ends. */
+        private int probeTablebases(Position board, int ply) {
+            if (_tablebases == null) {
+                return NO_CUTOFF;
+            }
+            int entry = _tablebases.probe(board);
+            if (entry == Tablebases.NONE) {
+                return NO_CUTOFF;
+            }
+            _tablebaseHits += 1;
+            int end = Math.min(ply + Tablebase.distance(entry),
+                               WINNING_VALUE - WINNING_BOUND - 1);
+            switch (Tablebase.result(entry)) {
+            case Tablebase.WIN:
+                return WINNING_VALUE - end;
+            case Tablebase.LOSS:
+                return -(WINNING_VALUE - end);
+            default:
+                return 0;
+            }
         }
 
-        return score;
-    }
+        /** Look up BOARD, which is PLY moves from the root, in my
+         *  transposition table, setting _hashMove to the best move
+         *  recorded for it, if any.  Return the value of BOARD if the
+         *  entry, searched to at least DEPTH, determines it for a search
+         *  with bounds ALPHA and BETA, as for search.  Otherwise return
+         *  NO_CUTOFF. */
+        private int probe(Position board, int depth, int ply,
+                          int alpha, int beta) {
+            _hashMove = null;
+            if (_table == null) {
+                return NO_CUTOFF;
+            }
+            if (!_table.probe(board.key(), _entry)) {
+                return NO_CUTOFF;
+            }
+            long data = _entry[0];
+            _hashMove = Move.unpack(_entry[1]);
+            if (depth(data) >= depth) {
+                int score = fromTable(score(data), ply);
+                switch (bound(data)) {
+                case EXACT:
+                    return score;
+                case LOWER:
+                    if (score >= beta) {
+                        return score;
+                    }
+                    break;
+                default:
+                    if (score <= alpha) {
+                        return score;
+                    }
+                    break;
+                }
+            }
+            return NO_CUTOFF;
+        }
 
-    /** Returns int representing best result at minimum based on
-     * current BOARD evaluating to DEPTH (then using static valuation)
-     * utilizing ALPHA-BETA pruning and common SENSE. */
-    private int maximizer(Board board, int depth,
-                           int alpha, int beta, int sense) {
-        if (board.gameOver()) {
-            if (board.whoseMove() == WHITE) {
-                return -WINNING_VALUE;
-            } else {
-                return WINNING_VALUE;
+        /** Record in my transposition table that searching BOARD, which is
+         *  PLY moves from the root, to DEPTH yielded SCORE, with bound type
+         *  BOUND and best move BEST. */
+        private void store(Position board, int depth, int ply, int bound,
+                           int score, Move best) {
+            if (_table != null && !_stopped) {
+                _table.store(board.key(), depth, bound,
+                             toTable(score, ply), Move.pack(best));
             }
         }
-        if (depth <= 0) {
-            return staticScore(board);
+
+        /** Prepare for a new search, resetting my statistics and killer
+         *  moves and reducing the weight of my history scores. */
+        private void newSearch() {
+            _nodes = _cutoffs = _firstCutoffs = _tablebaseHits = 0;
+            for (int[] killers : _killers) {
+                Arrays.fill(killers, NO_KILLER);
+            }
+            ageHistory();
         }
-        ArrayList<Move> moves = board.getMoves();
-        for (Move move:moves) {
-            board.makeMove(move);
-            int score = minimizer(board, depth - 1, alpha, beta, -sense);
-            board.undo();
-            alpha = java.lang.Math.max(alpha, score);
-            if (alpha >= beta) {
-                return beta;
-            }
-        }
-        return alpha;
-
-    }
-
-    /** Does anyone really look at these? This bad boy is the
-     * minimizer function for black pieces. it uses BOARD
-     * DEPTH ALPHA BETA SENSE in the same way as the
-     * other function but to minimize. it
-     * returns an int that gives the score of the most good
-     * result for BLACK:praiseemoji: */
-    private int minimizer(Board board,
-                          int depth, int alpha, int beta, int sense) {
-        if (board.gameOver()) {
-            if (board.whoseMove() == WHITE) {
-                return -WINNING_VALUE;
-            } else {
-                return WINNING_VALUE;
+
+        /** Score and sort MOVES, the legal moves of a position PLY moves
+         *  from the root, in the order in which they are to be searched:
+         *  first the best move found by a previous search (_hashMove),
+         *  then the captures of the most pieces, then the killer moves
+         *  at PLY, and then other moves by their history scores.  Since
+         *  captures are forced, MOVES are either all captures or all
+         *  non-capturing moves. */
+        private void orderMoves(MoveList moves, int ply) {
+            int[] killers = killers(ply);
+            for (int i = 0; i < moves.size(); i += 1) {
+                int code = moves.get(i);
+                Move move = Move.decode(code);
+                int score;
+                if (move == _hashMove) {
+                    score = HASH_MOVE_SCORE;
+                } else if (move.isJump()) {
+                    score = move.jumps();
+                } else if (code == killers[0]) {
+                    score = KILLER_SCORE;
+                } else if (code == killers[1]) {
+                    score = KILLER_SCORE - 1;
+                } else {
+                    score = _history[code];
+                }
+                moves.setScore(i, score);
             }
+            moves.sort();
         }
-        if (depth <= 0) {
-            return staticScore(board);
+
+        /** Record that MOVE, the Ith searched from a position PLY moves
+         *  from the root that was searched to DEPTH, caused a cutoff,
+         *  making it a killer move at PLY and increasing its history score
+         *  if it does not capture. */
+        private void recordCutoff(Move move, int i, int ply, int depth) {
+            _cutoffs += 1;
+            if (i == 0) {
+                _firstCutoffs += 1;
+            }
+            if (move.isJump()) {
+                return;
+            }
+            int code = move.code();
+            int[] killers = killers(ply);
+            if (killers[0] != code) {
+                killers[1] = killers[0];
+                killers[0] = code;
+            }
+            _history[code] += depth * depth;
+            if (_history[code] > HISTORY_LIMIT) {
+                ageHistory();
+            }
         }
-        ArrayList<Move> moves = board.getMoves();
-        for (Move move:moves) {
-            boolean daBugger = false;
-            try {
-                board.makeMove(move);
-            } catch (IllegalArgumentException I) {
-                daBugger = true;
+
+        /** Halve all history scores. */
+        private void ageHistory() {
+            for (int i = 0; i < _history.length; i += 1) {
+                _history[i] /= 2;
             }
-            if (daBugger) {
-                board.makeMove(move);
+        }
+
+        /** Return the killer moves (as codes, or NO_KILLER) for positions
+         *  PLY moves from the root, most recent first. */
+        private int[] killers(int ply) {
+            if (ply >= _killers.length) {
+                int n = _killers.length;
+                _killers = Arrays.copyOf(_killers, ply + 1);
+                for (int i = n; i <= ply; i += 1) {
+                    _killers[i] = new int[] { NO_KILLER, NO_KILLER };
+                }
+            }
+            return _killers[ply];
+        }
+
+        /** Return the buffer for the moves of positions PLY moves from
+         *  the root.  There is one for each ply, so that the moves of
+         *  each position on the current line of play are kept
+         *  separately, and they are reused from one search to the
+         *  next. */
+        private MoveList moveList(int ply) {
+            if (ply >= _moveLists.length) {
+                _moveLists = Arrays.copyOf(_moveLists, ply + 1);
             }
-            int score = maximizer(board, depth - 1, alpha, beta, -sense);
-            board.undo();
-            beta = java.lang.Math.min(beta, score);
-            if (alpha >= beta) {
-                return alpha;
+            if (_moveLists[ply] == null) {
+                _moveLists[ply] = new MoveList();
             }
+            return _moveLists[ply];
         }
-        return beta;
+
+        /** This Searcher's private copy of the position searched. */
+        private final Position _board = new Position();
+
+        /** Buffer for the data and move of the table entry last
+         *  probed. */
+        private final long[] _entry = new long[2];
+
+        /** The best move recorded for the position last probed. */
+        private Move _hashMove;
+
+        /** Number of positions visited by the current search. */
+        private long _nodes;
+
+        /** Number of cutoffs in the current search, and the number of
+         *  those caused by the first move searched. */
+        private long _cutoffs, _firstCutoffs;
+
+        /** Number of positions valued from my tablebases in the current
+         *  search. */
+        private long _tablebaseHits;
+
+        /** Move buffers indexed by ply (see moveList). */
+        private MoveList[] _moveLists = new MoveList[0];
+
+        /** Two killer moves for each ply (see killers). */
+        private int[][] _killers = new int[0][];
+
+        /** History scores of non-capturing moves, indexed by code: the
+         *  sum of the squares of the depths of the searches in which they
+         *  caused cutoffs, halved at each new search. */
+        private final int[] _history = new int[Bitboard.SQUARES
+                                               * Bitboard.SQUARES];
     }
 
+    /** Return 1 if white is to move on BOARD, and -1 otherwise.  A value
+     *  for white multiplied by this is the value for the player to
+     *  move. */
+    private static int sense(Position board) {
+        return board.whoseMove() == WHITE ? 1 : -1;
+    }
 
-    /** Return a heuristic value for BOARD. Any
-     *  call to this should be multiplied by sense. */
-    private int staticScore(Board board) {
-        int score;
-        int wPieces = 0;
-        int bPieces = 0;
-        for (int i = 0; i < BSIZE; i++) {
-            PieceColor piece = board.get(i);
-            if (piece == EMPTY) {
-                break;
-            } else if (piece == WHITE) {
-                wPieces += 1;
-            } else if (piece == BLACK) {
-                bPieces += 1;
-            }
+    /** Return SCORE, the value of a position PLY moves from the root, as
+     *  recorded in my table: wins and losses are counted from the position
+     *  rather than the root, so that the entry is valid wherever the
+     *  position occurs. */
+    private static int toTable(int score, int ply) {
+        if (score > WINNING_BOUND) {
+            return score + ply;
+        } else if (score < -WINNING_BOUND) {
+            return score - ply;
+        } else {
+            return score;
         }
-        score = (wPieces - bPieces);
-        if (bPieces == 0) {
-            score = WINNING_VALUE;
-        } else if (wPieces == 0) {
-            score = WINNING_VALUE * -1;
+    }
+
+    /** Return the value of a position PLY moves from the root whose value
+     *  as recorded in my table is SCORE (see toTable). */
+    private static int fromTable(int score, int ply) {
+        if (score > WINNING_BOUND) {
+            return score - ply;
+        } else if (score < -WINNING_BOUND) {
+            return score + ply;
+        } else {
+            return score;
         }
-        return score;
     }
 
-    /** Board size. */
-    private static final int BSIZE = 25;
+    /** Return a heuristic value for BOARD. Any
+     *  call to this should be multiplied by sense.  The material and
+     *  positional terms are kept up to date by BOARD, and mobility is
+     *  counted without generating moves, so this takes constant time. */
+    static int staticScore(Position board) {
+        return PIECE_VALUE * (board.pieceCount(WHITE)
+                              - board.pieceCount(BLACK))
+            + board.positionalValue()
+            + MOBILITY_VALUE * (board.mobility(WHITE)
+                                - board.mobility(BLACK));
+    }
+
+    /** Values of larger magnitude than this indicate wins or losses. */
+    private static final int WINNING_BOUND = WINNING_VALUE - 1000;
+
+    /** Allowance for positional gains in delta pruning (see quiesce). */
+    private static final int DELTA_MARGIN = PIECE_VALUE / 2;
+
+    /** Half the width of the aspiration window (see aspirate). */
+    private static final int ASPIRATION_WINDOW = PIECE_VALUE / 4;
+
+    /** Searches to at most this depth use a full window. */
+    private static final int ASPIRATION_DEPTH = 3;
+
+    /** Ordering scores (see orderMoves) of the hash move and of the most
+     *  recent killer move, which exceed all others. */
+    private static final int
+        HASH_MOVE_SCORE = Integer.MAX_VALUE,
+        KILLER_SCORE = Integer.MAX_VALUE - 2;
+
+    /** History scores are halved when one exceeds this value, which is
+     *  less than KILLER_SCORE. */
+    private static final int HISTORY_LIMIT = 1 << 24;
+
+    /** Marks an unused killer move slot. */
+    private static final int NO_KILLER = -1;
+
+    /** A value returned by probe to indicate that the search must
+     *  continue. */
+    private static final int NO_CUTOFF = Integer.MIN_VALUE;
+
+    /** My transposition table, shared by all my threads, or null if
+     *  none. */
+    private TranspositionTable _table;
+
+    /** The opening book I consult, or null if none. */
+    private OpeningBook _book;
+
+    /** The tablebases I probe, or null if none. */
+    private Tablebases _tablebases;
+
+    /** The threads used to search root moves in parallel, or null if I
+     *  search on a single thread.  They end when I am stopped. */
+    private ForkJoinPool _pool;
+
+    /** All Searchers used by my searches. */
+    private final List<Searcher> _searchers = new CopyOnWriteArrayList<>();
+
+    /** The Searcher used by the thread that calls myMove. */
+    private final Searcher _main = new Searcher();
+
+    /** The Searchers used by the threads of _pool. */
+    private final ThreadLocal<Searcher> _workers =
+        ThreadLocal.withInitial(() -> new Searcher());
+
+    /** The bounds at the root of the current search. */
+    private volatile int _rootAlpha, _rootBeta;
+
+    /** The best value (or upper bound) found so far at the root of the
+     *  current search. */
+    private int _rootValue;
+
+    /** The best move found so far at the root of the current search. */
+    private Move _rootBest;
+
+    /** Time allowed for each move in milliseconds, or 0 if unlimited. */
+    private final int _timeBudget;
+
+    /** True iff I search on my opponent's time (see startPondering). */
+    private final boolean _ponder;
+
+    /** The thread searching on my opponent's time, or null if none. */
+    private Thread _ponderThread;
+
+    /** The depth of the last search completed while pondering, or 0 if
+     *  none. */
+    private volatile int _ponderDepth;
+
+    /** The key of the position expected after my opponent's reply, as of
+     *  the last search completed while pondering. */
+    private volatile long _predictedKey;
+
+    /** Time (as for System.currentTimeMillis) at which the current search
+     *  must stop. */
+    private long _deadline;
+
+    /** True iff the current search has been abandoned for lack of time. */
+    private volatile boolean _stopped;
+
+    /** The number of positions visited by my last search. */
+    private long _lastNodes;
+
+    /** The number of cutoffs in my last search. */
+    private long _lastCutoffs;
+
+    /** The value of the position at my last move (see value()). */
+    private int _lastValue;
+
+    /** See depthReached(). */
+    private int _lastDepth;
+
+    /** True unless delta pruning has been disabled. */
+    private boolean _deltaPruning = true;
+
+    /** The depth of the last search that completed. */
+    private volatile int _depthReached;
+
+    /** The clock is checked when the number of nodes searched, masked
+     *  by this value, is 0. */
+    private static final int TIME_CHECK_INTERVAL = 0x3ff;
 }
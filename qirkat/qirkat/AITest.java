@@ -0,0 +1,256 @@
+package qirkat;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Tests of the AI class.
+ *  @author Noah Alcus
+ */
+public class AITest {
+
+    /** Return the number of bytes allocated so far by the current
+     *  thread. */
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean bean =
+            (com.sun.management.ThreadMXBean)
+            ManagementFactory.getThreadMXBean();
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /** Return an AI playing white in a new game, searching to DEPTH with
+     *  no time limit. */
+    private static AI whiteAI(int depth) {
+        SearchOptions options = new SearchOptions();
+        options.setTimeBudget(0);
+        options.setHashMegabytes(1);
+        Game game = new Game(new Board(), null, new TextReporter(),
+                             options);
+        return new AI(game, PieceColor.WHITE, depth, options);
+    }
+
+    /** Return an AI playing the side to move on BOARD in a new game,
+     *  searching to DEPTH with no time limit and a transposition table of
+     *  HASHMEGABYTES megabytes (none if 0). */
+    private static AI ai(Board board, int depth, int hashMegabytes) {
+        SearchOptions options = new SearchOptions();
+        options.setTimeBudget(0);
+        options.setHashMegabytes(hashMegabytes);
+        Game game = new Game(board, null, new TextReporter(), options);
+        return new AI(game, board.whoseMove(), depth, options);
+    }
+
+    /** Return a board reached from the initial position by MOVES moves
+     *  chosen at random with RANDOM, or fewer if the game ends first. */
+    private static Board randomBoard(Random random, int moves) {
+        Board board = new Board();
+        for (int i = 0; i < moves && !board.gameOver(); i += 1) {
+            ArrayList<Move> legal = board.getMoves();
+            board.makeMove(legal.get(random.nextInt(legal.size())));
+        }
+        return board;
+    }
+
+    /** Return the value of POSITION for the player to move, which is PLY
+     *  moves from the root, by a plain alpha-beta search to DEPTH within
+     *  the window ALPHA .. BETA, with the same scoring of wins, losses,
+     *  and quiet positions as AI, and searching all captures at the
+     *  leaves, as AI does without delta pruning. */
+    private static int alphaBeta(Position position, int depth, int ply,
+                                 int alpha, int beta) {
+        if (position.gameOver()) {
+            return -(AI.WINNING_VALUE - ply);
+        }
+        if (depth <= 0 && !position.jumpPossible()) {
+            int sense = position.whoseMove() == PieceColor.WHITE ? 1 : -1;
+            return sense * AI.staticScore(position);
+        }
+        int best = -Integer.MAX_VALUE;
+        for (Move move : position.getMoves()) {
+            position.makeMove(move);
+            int score = -alphaBeta(position, depth - 1, ply + 1, -beta,
+                                   -Math.max(alpha, best));
+            position.undo();
+            best = Math.max(best, score);
+            if (best >= beta) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    /** Return the value for the player to move of BOARD by alphaBeta
+     *  searching to DEPTH. */
+    private static int alphaBeta(Board board, int depth) {
+        Position position = new Position();
+        board.copyPosition(position);
+        return alphaBeta(position, depth, 0, -Integer.MAX_VALUE,
+                         Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void testTranspositionTable() {
+        Random random = new Random(SEED);
+        for (int trial = 0; trial < TRIALS; trial += 1) {
+            Board board = randomBoard(random, RANDOM_MOVES);
+            if (board.getMoves().size() < 2) {
+                continue;
+            }
+            AI plain = ai(board, HASH_DEPTH, 0),
+                hashed = ai(board, HASH_DEPTH, 1);
+            Move move = plain.myMove();
+            assertEquals(move, hashed.myMove());
+            assertEquals(plain.value(), hashed.value());
+            assertTrue(hashed.nodes() < plain.nodes());
+        }
+    }
+
+    @Test
+    public void testPrincipalVariationSearch() {
+        Random random = new Random(SEED);
+        for (int trial = 0; trial < TRIALS; trial += 1) {
+            Board board = randomBoard(random, RANDOM_MOVES);
+            if (board.getMoves().size() < 2) {
+                continue;
+            }
+            AI ai = ai(board, PVS_DEPTH, 0);
+            ai.disableDeltaPruning();
+            ai.myMove();
+            assertEquals(alphaBeta(board, PVS_DEPTH), ai.value());
+        }
+    }
+
+    @Test
+    public void testQuiescence() {
+        Board board = new Board();
+        board.setPieces("----- ----- --w-b --w-- -b---", PieceColor.WHITE);
+        Position position = new Position();
+        board.copyPosition(position);
+        Move hanging = Move.parseMove("c4-b4");
+        position.makeMove(hanging);
+        assertTrue(position.jumpPossible());
+        int hangingScore = AI.staticScore(position);
+        position.undo();
+        for (Move move : position.getMoves()) {
+            position.makeMove(move);
+            assertTrue(AI.staticScore(position) <= hangingScore);
+            position.undo();
+        }
+
+        AI ai = ai(board, 1, 0);
+        Move move = ai.myMove();
+        assertNotEquals(hanging, move);
+        board.makeMove(move);
+        assertFalse(board.jumpPossible());
+    }
+
+    @Test
+    public void testTimeBudget() {
+        SearchOptions options = new SearchOptions();
+        options.setTimeBudget(TIME_BUDGET);
+        options.setHashMegabytes(1);
+        Game game = new Game(new Board(), null, new TextReporter(),
+                             options);
+        AI ai = new AI(game, PieceColor.WHITE, options.maxDepth(), options);
+        long time0 = System.currentTimeMillis();
+        Move move = ai.myMove();
+        long time = System.currentTimeMillis() - time0;
+        assertNotNull(move);
+        assertTrue("took " + time + " msec", time < TIME_BUDGET + TIME_SLACK);
+        assertTrue(ai.depthReached() >= 1);
+        assertTrue(ai.depthReached() < options.maxDepth());
+    }
+
+    @Test
+    public void testSearchAllocation() {
+        whiteAI(SEARCH_DEPTH).myMove();
+        AI ai = whiteAI(SEARCH_DEPTH);
+        long before = allocatedBytes();
+        ai.myMove();
+        long used = allocatedBytes() - before;
+        assertTrue("too few nodes to measure", ai.nodes() >= MIN_NODES);
+        assertTrue("search allocated " + used + " bytes for " + ai.nodes()
+                   + " nodes", used < MAX_SEARCH_BYTES);
+    }
+
+    @Test
+    public void testPonder() throws InterruptedException {
+        SearchOptions options = new SearchOptions();
+        options.setTimeBudget(0);
+        options.setHashMegabytes(1);
+        options.setPonder(true);
+        Board board = Bench.board("crowded");
+        Game game = new Game(board, null, new TextReporter(), options);
+        AI ai = new AI(game, board.whoseMove(), PONDER_DEPTH, options);
+        Move move = ai.myMove();
+        assertTrue(ai.pondering());
+        board.makeMove(move);
+        while (ai.ponderDepth() < PONDER_DEPTH) {
+            Thread.sleep(1);
+        }
+        Move predicted = null;
+        for (Move reply : board.getMoves()) {
+            board.makeMove(reply);
+            if (board.key() == ai.predictedKey()) {
+                predicted = reply;
+            }
+            board.undo();
+        }
+        assertNotNull(predicted);
+        board.makeMove(predicted);
+        Move answer = ai.myMove();
+        assertTrue(board.legalMove(answer));
+        ai.stop();
+        assertFalse(ai.pondering());
+
+        AI fresh = ai(new Board(board), PONDER_DEPTH, 1);
+        fresh.myMove();
+        assertTrue(ai.nodes() + " nodes after pondering, "
+                   + fresh.nodes() + " without",
+                   PONDER_GAIN * ai.nodes() < fresh.nodes());
+    }
+
+    /** Seed for choosing the positions searched. */
+    private static final long SEED = 42;
+
+    /** Number of positions searched by each test of several. */
+    private static final int TRIALS = 10;
+
+    /** Number of random moves leading to each position searched. */
+    private static final int RANDOM_MOVES = 6;
+
+    /** Depth of the searches with and without a transposition table. */
+    private static final int HASH_DEPTH = 8;
+
+    /** Depth of the searches compared with plain alpha-beta. */
+    private static final int PVS_DEPTH = 6;
+
+    /** Time allowed for a search with a time budget, in milliseconds. */
+    private static final int TIME_BUDGET = 200;
+
+    /** Time by which a search may overrun its budget, in milliseconds. */
+    private static final int TIME_SLACK = 300;
+
+    /** Depth of the searches of an AI that ponders. */
+    private static final int PONDER_DEPTH = 8;
+
+    /** Least factor by which pondering must reduce the nodes searched
+     *  for the predicted reply. */
+    private static final int PONDER_GAIN = 2;
+
+    /** Depth of the search whose allocation is measured. */
+    private static final int SEARCH_DEPTH = 15;
+
+    /** Least number of nodes for a meaningful measurement. */
+    private static final long MIN_NODES = 10000;
+
+    /** Bound on the memory allocated by one search, which must not
+     *  depend on the number of nodes: it covers only the per-search
+     *  setup and the move buffers. */
+    private static final long MAX_SEARCH_BYTES = 64 * 1024;
+
+}
@@ -0,0 +1,71 @@
+package qirkat;
+
+import static qirkat.PieceColor.*;
+
+/** A fixed benchmark of the AI: searches of a built-in list of positions
+ *  to a fixed depth.  The total number of nodes searched depends only on
+ *  the search itself, and so serves as a signature of its behavior, while
+ *  the rate at which they are searched measures its speed.
+ *  @author Noah Alcus
+ */
+class Bench {
+
+    /** Default search depth. */
+    static final int DEFAULT_DEPTH = 12;
+
+    /** The positions searched.  Each is given by a name, the player to
+     *  move, and the pieces, as for the 'set' command. */
+    static final String[][] POSITIONS = {
+        { "opening", "white", "wwwww wwwww bb-ww bbbbb bbbbb" },
+        { "midgame", "white", "wwwww w-w-w --b-- b-bbw bbbbb" },
+        { "multijump", "white", "w-w-- -bbb- ----- -bbb- ---w-" },
+        { "tension", "white", "ww-ww -ww-w --w-b bb-bb bb-bb" },
+        { "crowded", "black", "w---w -www- --b-- -bbb- b---b" },
+        { "sparse", "white", "-w-w- w---w --w-- b-b-b -b-b-" },
+        { "endgame", "white", "----- --w-- ----- -b-b- ----b" },
+    };
+
+    /** Return a new Board holding the position in POSITIONS named NAME. */
+    static Board board(String name) {
+        for (String[] desc : POSITIONS) {
+            if (desc[0].equals(name)) {
+                Board result = new Board();
+                result.setPieces(desc[2],
+                                 desc[1].equals("white") ? WHITE : BLACK);
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("unknown position: " + name);
+    }
+
+    /** Search each of POSITIONS to DEPTH, using the transposition table
+     *  size given by OPTIONS, and report the move chosen and the nodes
+     *  searched for each, and the totals, to OUT.  Each search is done
+     *  on one thread with a new AI, no time limit, no pondering, and no
+     *  opening book or tablebases, so that the number of nodes is the
+     *  same from run to run, whatever data files are present. */
+    static void report(int depth, SearchOptions options, Reporter out) {
+        SearchOptions benchOptions = new SearchOptions(options);
+        benchOptions.setTimeBudget(0);
+        benchOptions.setThreads(1);
+        benchOptions.setPonder(false);
+        benchOptions.setBook(null);
+        benchOptions.setTablebases(null);
+        long nodes, time0;
+        nodes = 0;
+        time0 = System.nanoTime();
+        for (String[] desc : POSITIONS) {
+            Board board = board(desc[0]);
+            Game game = new Game(board, null, out, benchOptions);
+            AI ai = new AI(game, board.whoseMove(), depth, benchOptions);
+            Move move = ai.myMove();
+            ai.stop();
+            nodes += ai.nodes();
+            out.moveMsg("%-10s %-24s %d nodes", desc[0], move, ai.nodes());
+        }
+        long micros = Math.max(1, (System.nanoTime() - time0) / 1000);
+        out.moveMsg("Depth %d: %d nodes in %d msec (%d per second)",
+                    depth, nodes, micros / 1000, nodes * 1_000_000 / micros);
+    }
+
+}
@@ -0,0 +1,152 @@
+package qirkat;
+
+import static qirkat.PieceColor.*;
+import static qirkat.Move.*;
+
+/** Precomputed square masks for a bitboard representation of a Qirkat
+ *  board.  A set of squares is denoted by an int mask in which bit K is
+ *  on iff the square with linearized index K is in the set, so that a
+ *  position is fully described by one such mask per color.
+ *  @author Noah Alcus
+ */
+class Bitboard {
+
+    /** Number of squares on the board. */
+    static final int SQUARES = SIDE * SIDE;
+
+    /** The mask containing every square. */
+    static final int ALL = (1 << SQUARES) - 1;
+
+    /** Offsets of linearized indices for the eight directions, in
+     *  increasing order (SW, S, SE, W, E, NW, N, NE). */
+    static final int[] DIRECTIONS = { -6, -5, -4, -1, 1, 4, 5, 6 };
+
+    /** STEP_FROM[D] is the set of squares from which a single step in
+     *  direction DIRECTIONS[D] stays on the board and follows a line of
+     *  the board (diagonals only connect even-numbered squares). */
+    static final int[] STEP_FROM = new int[DIRECTIONS.length];
+
+    /** JUMP_FROM[D] is the set of squares from which two steps in
+     *  direction DIRECTIONS[D] stay on the board along a line. */
+    static final int[] JUMP_FROM = new int[DIRECTIONS.length];
+
+    /** STEPS[C][K] is the set of squares reachable by a non-capturing
+     *  move of a piece with ordinal C at K, ignoring occupancy and the
+     *  restrictions on horizontal moves.  It is empty on the far row,
+     *  where a piece may no longer move without capturing. */
+    static final int[][] STEPS = new int[PieceColor.values().length][SQUARES];
+
+    /** STEP_SOURCES[C][D] is the set of squares from which a piece with
+     *  ordinal C may make a non-capturing move in direction
+     *  DIRECTIONS[D], ignoring occupancy and the restrictions on
+     *  horizontal moves (so that K is in STEP_SOURCES[C][D] iff
+     *  K + DIRECTIONS[D] is in STEPS[C][K]). */
+    static final int[][] STEP_SOURCES =
+        new int[PieceColor.values().length][DIRECTIONS.length];
+
+    /** Index in DIRECTIONS of the directions left (W) and right (E). */
+    static final int LEFT = 3, RIGHT = 4;
+
+    /** WEST[K] and EAST[K] are the masks of the squares immediately to the
+     *  left and right of K, or 0 at the edge of the board. */
+    static final int[] WEST = new int[SQUARES], EAST = new int[SQUARES];
+
+    /** JUMPS[K] is the set of landing squares of single jumps from K,
+     *  ignoring occupancy. */
+    static final int[] JUMPS = new int[SQUARES];
+
+    /** Return the mask containing only square K. */
+    static int bit(int k) {
+        return 1 << k;
+    }
+
+    /** Return true iff square K is in MASK. */
+    static boolean contains(int mask, int k) {
+        return (mask & (1 << k)) != 0;
+    }
+
+    /** Return the lowest-numbered square in the non-empty MASK. */
+    static int first(int mask) {
+        return Integer.numberOfTrailingZeros(mask);
+    }
+
+    /** Return MASK with every square moved by OFFSET linearized
+     *  positions, dropping any that leave the board.  Callers must
+     *  restrict MASK beforehand to squares whose moves stay on lines. */
+    static int shift(int mask, int offset) {
+        if (offset >= 0) {
+            return (mask << offset) & ALL;
+        } else {
+            return mask >>> -offset;
+        }
+    }
+
+    /** Return the set of squares in OWN holding a piece that can capture
+     *  a piece in OPP, given that EMPTY is the set of vacant squares. */
+    static int jumpers(int own, int opp, int empty) {
+        int result;
+        result = 0;
+        for (int d = 0; d < DIRECTIONS.length; d += 1) {
+            int off = DIRECTIONS[d];
+            int landing = shift(shift(own & JUMP_FROM[d], off) & opp, off)
+                & empty;
+            result |= shift(landing, -2 * off);
+        }
+        return result;
+    }
+
+    /** Return true iff a piece at square K can capture a piece in OPP,
+     *  given that EMPTY is the set of vacant squares. */
+    static boolean canJump(int k, int opp, int empty) {
+        for (int targets = JUMPS[k] & empty; targets != 0;
+             targets &= targets - 1) {
+            if (contains(opp, (k + first(targets)) / 2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Return true iff the step from (C, R) by DC columns and DR rows
+     *  remains on the board and follows a line of the board. */
+    private static boolean onLine(int c, int r, int dc, int dr) {
+        if (c + dc < 0 || c + dc >= SIDE || r + dr < 0 || r + dr >= SIDE) {
+            return false;
+        }
+        return dc == 0 || dr == 0 || (c + r * SIDE) % 2 == 0;
+    }
+
+    static {
+        for (int k = 0; k < SQUARES; k += 1) {
+            int c = k % SIDE, r = k / SIDE;
+            for (int d = 0; d < DIRECTIONS.length; d += 1) {
+                int dr = Math.floorDiv(DIRECTIONS[d] + 1, SIDE),
+                    dc = DIRECTIONS[d] - dr * SIDE;
+                if (onLine(c, r, dc, dr)) {
+                    STEP_FROM[d] |= bit(k);
+                    if (onLine(c, r, 2 * dc, 2 * dr)) {
+                        JUMP_FROM[d] |= bit(k);
+                        JUMPS[k] |= bit(k + 2 * DIRECTIONS[d]);
+                    }
+                }
+            }
+            WEST[k] = c > 0 ? bit(k - 1) : 0;
+            EAST[k] = c < SIDE - 1 ? bit(k + 1) : 0;
+            for (int d = 0; d < DIRECTIONS.length; d += 1) {
+                if (!contains(STEP_FROM[d], k)) {
+                    continue;
+                }
+                int to = k + DIRECTIONS[d];
+                if (r < SIDE - 1 && to / SIDE >= r) {
+                    STEPS[WHITE.ordinal()][k] |= bit(to);
+                    STEP_SOURCES[WHITE.ordinal()][d] |= bit(k);
+                }
+                if (r > 0 && to / SIDE <= r) {
+                    STEPS[BLACK.ordinal()][k] |= bit(to);
+                    STEP_SOURCES[BLACK.ordinal()][d] |= bit(k);
+                }
+            }
+        }
+    }
+
+}
@@ -1,12 +1,9 @@
 package qirkat;
 
 import java.util.ArrayList;
-import java.util.Formatter;
-import java.util.Observable;
-import java.util.Observer;
-
-import static qirkat.PieceColor.*;
-import static qirkat.Move.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 
 /** A Qirkat board.   The squares are labeled by column (a char value between
  *  'a' and 'e') and row (a char value between '1' and '5'.
@@ -19,115 +16,84 @@ import static qirkat.Move.*;
  *  Moves on this board are denoted by Moves.
  *  @author Noah "broke the stylecheck" Alcus
  */
-class Board extends Observable {
+class Board {
 
     /** A new, cleared board at the start of the game. */
     Board() {
-        _board = new PieceColor[5][5];
-        _lArray = new boolean[BOARDSIZE];
-        _rArray = new boolean[BOARDSIZE];
-        clear();
-        _lastState = null;
+        _position = new Position();
     }
 
-    /** Datatype representing the Board. */
-    private PieceColor[][] _board;
-
-    /** Datstructure representing left moves. */
-    private boolean[] _lArray;
-
-    /** Datastruct representing right moves. */
-    private boolean[] _rArray;
-
-    /** Returns if left move is possible for piece at K. */
-    private boolean lPoss(int k) {
-        return _lArray[k];
+    /** A copy of B. */
+    Board(Board b) {
+        _position = new Position(b._position);
     }
 
-    /** Sets left move array to reflect a left move MOV. */
-    public void logMoveLeft(Move mov) {
-        assert mov.isLeftMove();
-        _rArray[index(mov.col1(), mov.row1())] = false;
+    /** Return the number of pieces of color C. */
+    int pieceCount(PieceColor c) {
+        return _position.pieceCount(c);
     }
 
-    /** Returns if right move is possible for piece at K. */
-    private boolean rPoss(int k) {
-        return _rArray[k];
+    /** Return the sum of the positional values (see Evaluation) of the
+     *  white pieces, less that of the black pieces. */
+    int positionalValue() {
+        return _position.positionalValue();
     }
 
-    /** Sets right move array to reflect a right move MOV. */
-    public void logMoveRight(Move mov) {
-        assert mov.isRightMove();
-        _lArray[index(mov.col1(), mov.row1())] = false;
+    /** Return a 64-bit hash of my position: the pieces, the restrictions
+     *  on their horizontal moves, and the player to move.  Equal
+     *  positions have equal keys. */
+    long key() {
+        return _position.key();
     }
 
-    /** Resets the left moves arrays at position k after
-     * a jump/right move MOV. */
-    public void resetLMoves(Move mov) {
-        int k = index(mov.col1(), mov.row1());
-        _lArray[k] = true;
+    /** Return an unchangeable copy of my current contents. */
+    BoardSnapshot snapshot() {
+        if (_snapshot == null) {
+            _snapshot = new BoardSnapshot(_position);
+        }
+        return _snapshot;
     }
 
-    /** Resets the right moves arrays at position k
-     *  after a jump/left move MOV. */
-    public void resetRMoves(Move mov) {
-        int k = index(mov.col1(), mov.row1());
-        _rArray[k] = true;
+    /** Arrange to tell LISTENER of each change to me, on the thread that
+     *  makes the change. */
+    void addListener(BoardListener listener) {
+        addListener(listener, Runnable::run);
     }
 
-    /** A copy of B. */
-    Board(Board b) {
-        _board = new PieceColor[5][5];
-        _gameOver = false;
-        _lastState = null;
-        _lArray = new boolean[BOARDSIZE];
-        _rArray = new boolean[BOARDSIZE];
-        for (int i = 0; i < BOARDSIZE; i++) {
-            _lArray[i] = _rArray[i] = true;
-        }
-        internalCopy(b);
+    /** Arrange to tell LISTENER of changes to me by running tasks with
+     *  EXECUTOR.  LISTENER is told of one change at a time, in order,
+     *  and if I change again before it has been told of an earlier
+     *  change, it is told only of the later one.  Thus, a slow LISTENER
+     *  never delays the thread that changes me, and never falls behind by
+     *  more than one snapshot. */
+    void addListener(BoardListener listener, Executor executor) {
+        Delivery delivery = new Delivery(listener, executor);
+        _listeners.add(delivery);
+        delivery.post(snapshot());
     }
 
-    /** Return a constant view of me (allows any access method, but no
-     *  method that modifies it). */
-    Board constantView() {
-        return this.new ConstantBoard();
+    /** Stop telling LISTENER of changes to me. */
+    void removeListener(BoardListener listener) {
+        _listeners.removeIf(d -> d._listener == listener);
     }
 
     /** Clear me to my starting state, with pieces in their initial
      *  positions. */
     void clear() {
-        _whoseMove = WHITE;
-        _gameOver = false;
-        _lastState = null;
-        for (int i = 0; i < BOARDSIZE; i++) {
-            _lArray[i] = _rArray[i] = true;
-        }
-
-        setPieces("wwwwwwwwwwbb-wwbbbbbbbbbb", _whoseMove);
-
-        setChanged();
-        notifyObservers();
+        _position.clear();
+        announce();
     }
 
     /** Copy B into me. */
     void copy(Board b) {
-        internalCopy(b);
+        _position.copy(b._position);
+        announce();
     }
 
-    /** Copy B into me. */
-    private void internalCopy(Board b) {
-        int linLength = BOARDSIZE;
-        for (int i = 0; i < linLength; i += 1) {
-            set(i, b.get(i));
-            _lArray[i] = b._lArray[i];
-            _rArray[i] = b._rArray[i];
-            _gameOver = b._gameOver;
-        }
-        if (b.getLastState() != null) {
-            _lastState = b.getLastState();
-        }
-        _whoseMove = b.whoseMove();
+    /** Copy my position into P, which may then be changed without
+     *  affecting me or notifying my observers. */
+    void copyPosition(Position p) {
+        p.copy(_position);
     }
 
     /** Set my contents as defined by STR.  STR consists of 25 characters,
@@ -138,303 +104,95 @@ class Board extends Observable {
      *  NEXTMOVE indicates whose move it is.
      */
     void setPieces(String str, PieceColor nextMove) {
-        if (nextMove == EMPTY || nextMove == null) {
-            throw new IllegalArgumentException("bad player color");
-        }
-        str = str.replaceAll("\\s", "");
-        if (!str.matches("[bw-]{25}")) {
-            throw new IllegalArgumentException("bad board description");
-        }
-        _whoseMove = nextMove;
-        for (int k = 0; k < str.length(); k += 1) {
-            switch (str.charAt(k)) {
-            case '-':
-                set(k, EMPTY);
-                break;
-            case 'b':
-            case 'B':
-                set(k, BLACK);
-                break;
-            case 'w':
-            case 'W':
-                set(k, WHITE);
-                break;
-            default:
-                break;
-            }
-            _lArray[k] = true;
-            _rArray[k] = true;
-        }
-        if (getMoves().size() == 0) {
-            _gameOver = true;
-        }
-        setChanged();
-        notifyObservers();
+        _position.setPieces(str, nextMove);
+        announce();
     }
 
     /** Return true iff the game is over: i.e., if the current player has
      *  no moves. */
     boolean gameOver() {
-        return _gameOver;
+        return _position.gameOver();
     }
 
     /** Return the current contents of square C R, where 'a' <= C <= 'e',
      *  and '1' <= R <= '5'.  */
     PieceColor get(char c, char r) {
-        assert validSquare(c, r);
-        return get(index(c, r));
+        return _position.get(c, r);
     }
 
     /** Return the current contents of the square at linearized index K. */
     PieceColor get(int k) {
-        assert validSquare(k);
-        PieceColor item = _board[k % 5][k / 5];
-        return item;
-    }
-
-    /** Set get(C, R) to V, where 'a' <= C <= 'e', and
-     *  '1' <= R <= '5'. */
-    private void set(char c, char r, PieceColor v) {
-        assert validSquare(c, r);
-        set(index(c, r), v);
-    }
-
-    /** Set get(K) to V, where K is the linearized index of a square. */
-    private void set(int k, PieceColor v) {
-        assert validSquare(k);
-        _board[k % 5][k / 5] = v;
+        return _position.get(k);
     }
 
-    /** Return true iff MOV is legal on the current board. */
+    /** Return true iff MOV is legal on the current board.  MOV is checked
+     *  directly, without generating the other legal moves, and so may be
+     *  any Move, such as one parsed from a player's input. */
     boolean legalMove(Move mov) {
-        ArrayList<Move> moves = new ArrayList<Move>();
-        getMoves(moves);
-        if (mov.isVestigial()) {
-            return false;
-        }
-        for (int i = 0; i < moves.size(); i++) {
-            if (moves.get(i) == mov) {
-                return true;
-            }
-        }
-        return false;
+        return _position.legalMove(mov);
     }
 
     /** Return a list of all legal moves from the current position. */
     ArrayList<Move> getMoves() {
-        ArrayList<Move> result = new ArrayList<>();
-        getMoves(result);
-        return result;
+        return _position.getMoves();
     }
 
     /** Add all legal moves from the current position to MOVES. */
     void getMoves(ArrayList<Move> moves) {
-        if (gameOver()) {
-            return;
-        }
-        if (jumpPossible()) {
-            for (int k = 0; k <= MAX_INDEX; k += 1) {
-                getJumps(moves, k);
-            }
-        } else {
-            for (int k = 0; k <= MAX_INDEX; k += 1) {
-                getMoves(moves, k);
-            }
-        }
+        _position.getMoves(moves);
     }
 
-    /** Add all legal non-capturing moves from the position
-     *  with linearized index K to MOVES. */
-    private void getMoves(ArrayList<Move> moves, int k) {
-
-        PieceColor cPiece = get(k);
-        if (cPiece != whoseMove()) {
-            return;
-        }
-        int min, max;
-        if (cPiece == WHITE) {
-            if (MAXWHITE <= k) {
-                return;
-            }
-            min = 0;
-            max = 1;
-        } else if (cPiece == BLACK) {
-            if (k <= MINBLACK) {
-                return;
-            }
-            min = -1;
-            max = 0;
-        } else {
-            return;
-        }
-        for (int rMove = min; rMove <= max; rMove += 1) {
-
-            for (int cMove = -1; cMove <= 1; cMove++) {
-
-                int linInd = k + rMove * 5 + cMove;
-
-                if (Move.validSquare(linInd)
-                        && k % 5 + cMove >= 0 && k % 5 + cMove <= 4
-                        && get(linInd) == EMPTY) {
-
-                    if (rMove != 0 && cMove != 0 && k % 2 != 0) {
-                        int idkwtftodo;
-                    } else if (rMove == 0 && cMove == -1 && !lPoss(k)) {
-                        int idkwtftodo;
-                    } else if (rMove == 0 && cMove == 1 && !rPoss(k)) {
-                        int idkwtftodo;
-                    } else {
-                        char col0 = Move.col(k), row0 = Move.row(k),
-                                col1 = Move.col(linInd),
-                                row2 = Move.row(linInd);
-                        moves.add(Move.move(col0, row0, col1, row2));
-                    }
-                }
-            }
-        }
+    /** Set MOVES to the codes (see Move.code()) of all legal moves from
+     *  the current position, in the same order as getMoves(). */
+    void getMoves(MoveList moves) {
+        _position.getMoves(moves);
     }
 
-
-    /** Add all legal captures from the position with linearized index K
-     *  to MOVES. */
-    private void getJumps(ArrayList<Move> moves, int k) {
-        PieceColor cPiece = get(k);
-        if (cPiece != whoseMove()) {
-            return;
-        }
-        int min, max;
-        if (cPiece.isPiece()) {
-            min = -2;
-            max = 2;
-        } else {
-            return;
-        }
-        for (int rMove = min; rMove <= max; rMove += 2) {
-            for (int cMove = -2; cMove <= 2; cMove += 2) {
-                int linInd = k + rMove * 5 + cMove;
-                if (Move.validSquare(linInd)
-                        && k % 5 + cMove >= 0 && k % 5 + cMove <= 4
-                        && get(linInd) == EMPTY
-                        && get((linInd + k) / 2) == cPiece.opposite()) {
-                    if (rMove != 0 && cMove != 0 && k % 2 != 0) {
-                        int idkwhattodohere;
-                    } else {
-                        char col0 = Move.col(k), row0 = Move.row(k),
-                                col1 = Move.col(linInd),
-                                row1 = Move.row(linInd);
-                        ArrayList<Move> cont = jumperHelper(col0, row0,
-                                col1, row1, cPiece);
-                        if (cont.size() > 0) {
-                            for (Move move : cont) {
-                                moves.add(Move.move(col0, row0, col1,
-                                        row1, move));
-                            }
-                        } else {
-                            moves.add(Move.move(col0, row0, col1, row1));
-                        }
-                    }
-                }
-            }
-        }
+    /** Return the number of legal moves from the current position. */
+    int countMoves() {
+        return _position.countMoves();
     }
 
-    /** takes beginng loc BCOL-BROW and end loc DCOL-DROW and
-     * jumping piececolor CP and returns an ArrayList of possible
-     * jump continuations. */
-    public ArrayList<Move> jumperHelper(char bCol, char bRow,
-                                         char dCol, char dRow, PieceColor cp) {
-        ArrayList<Move> nextJumps = new ArrayList<Move>();
-        set(dCol, dRow, cp);
-        set(bCol, bRow, EMPTY);
-        set((char) ((bCol + dCol) / 2), (char) ((bRow + dRow) / 2), EMPTY);
-
-
-        getJumps(nextJumps, index(dCol, dRow));
+    /** Return true iff the player to move has a legal move, regardless
+     *  of gameOver(). */
+    boolean hasAnyMove() {
+        return _position.hasAnyMove();
+    }
 
-        set(dCol, dRow, EMPTY);
-        set(bCol, bRow, cp);
-        set((char) ((bCol + dCol) / 2),
-                (char) ((bRow + dRow) / 2), cp.opposite());
-        return nextJumps;
+    /** Return the number of non-capturing moves the pieces of color C
+     *  could make, regardless of whose move it is or of whether a capture
+     *  is possible. */
+    int mobility(PieceColor c) {
+        return _position.mobility(c);
     }
 
     /** Return true iff PMOV is a valid jump sequence on the current board.
      *  PMOV must be a jump or null.  If ALLOWPARTIAL, allow jumps that
      *  could be continued and are valid as far as they go.  */
     boolean checkJump(Move pMov, boolean allowPartial) {
-        if (pMov == null) {
-            return true;
-        } else {
-            ArrayList<Move> allMoves = new ArrayList<Move>();
-            getMoves(allMoves);
-            if (allMoves.size() == 0) {
-                return false;
-            }
-            if (!allMoves.get(0).isJump()) {
-                return false;
-            }
-            for (Move move : allMoves) {
-                if (move == pMov) {
-                    return true;
-                }
-            }
-            if (allowPartial) {
-                Move pPointer;
-                Move mPointer;
-                for (Move move: allMoves) {
-                    if (move.col0() != pMov.col0()
-                            || move.row0() != pMov.row0()
-                            || move.col1() != pMov.col1()
-                            || move.row1() != pMov.row1()) {
-                        break;
-                    }
-                    pPointer = pMov;
-                    mPointer = move;
-                    while (pPointer != null) {
-                        pPointer = pPointer.jumpTail();
-                        mPointer = mPointer.jumpTail();
-                        if (mPointer == null) {
-                            break;
-                        }
-                        if (move.col1() != pMov.col1()
-                                || move.row1() != pMov.row1()) {
-                            break;
-                        }
-                    }
-                    return true;
-                }
-            }
-        }
-        return false;
+        return _position.checkJump(pMov, allowPartial);
     }
 
     /** Return true iff a jump is possible for a piece at position C R. */
     boolean jumpPossible(char c, char r) {
-        return jumpPossible(index(c, r));
+        return _position.jumpPossible(c, r);
     }
 
     /** Return true iff a jump is possible for a piece at position with
      *  linearized index K. */
     boolean jumpPossible(int k) {
-        ArrayList<Move> poss = new ArrayList<Move>();
-        getJumps(poss, k);
-        return poss.size() != 0;
+        return _position.jumpPossible(k);
     }
 
     /** Return true iff a jump is possible from the current board. */
     boolean jumpPossible() {
-        for (int k = 0; k <= MAX_INDEX; k += 1) {
-            if (jumpPossible(k)) {
-                return true;
-            }
-        }
-        return false;
+        return _position.jumpPossible();
     }
 
     /** Return the color of the player who has the next move.  The
      *  value is arbitrary if gameOver(). */
     PieceColor whoseMove() {
-        return _whoseMove;
+        return _position.whoseMove();
     }
 
     /** Perform the move C0R0-C1R1, or pass if C0 is '-'.  For moves
@@ -451,81 +209,44 @@ class Board extends Observable {
 
     /** Make the Move MOV on this Board, assuming it is legal. */
     void makeMove(Move mov) {
-        boolean test1 = legalMove(mov);
-        if (!legalMove(mov)) {
-            throw new IllegalArgumentException("illegal move");
-        }
-        PieceColor currColor = get(mov.col0(), mov.row0());
-        Board lastState = new Board();
-        lastState.internalCopy(this);
-        _lastState = lastState;
-        _whoseMove = _whoseMove.opposite();
-        Move currMove = mov;
-        if (mov.isJump()) {
-            Move currJump = currMove;
-            boolean jumpin = true;
-            while (jumpin) {
-                jumpin = false;
-                set(currJump.col0(), currJump.row0(), EMPTY);
-                set(currJump.jumpedCol(), currJump.jumpedRow(), EMPTY);
-                set(currJump.col1(), currJump.row1(), currColor);
-                if (currJump.jumpTail() != null) {
-                    jumpin = true;
-                    currJump = currJump.jumpTail();
-                } else {
-                    resetLMoves(currJump);
-                    resetRMoves(currJump);
-                }
-            }
-        } else {
-            set(currMove.col0(), currMove.row0(), EMPTY);
-            set(currMove.col1(), currMove.row1(), currColor);
-            if (currMove.isLeftMove()) {
-                logMoveLeft(currMove);
-                resetLMoves(currMove);
-            } else if (currMove.isRightMove()) {
-                logMoveRight(currMove);
-                resetRMoves(currMove);
-            } else {
-                resetLMoves(currMove);
-                resetRMoves(currMove);
-            }
-        }
-        if (!(getMoves().size() > 0)) {
-            _gameOver = true;
-        }
-        setChanged();
-        notifyObservers();
+        _position.makeMove(mov);
+        announce();
     }
 
-    /** Undo the last move, if any. */
+    /** Undo the last move, if any.  Any number of moves made since the
+     *  last clear() or setPieces may be undone in turn. */
     void undo() {
-        if (_lastState == null) {
+        _position.undo();
+        announce();
+    }
+
+    /** Tell my listeners, if any, that I have changed.  When there are
+     *  none, as for Boards used in testing, no snapshot is made. */
+    private void announce() {
+        _snapshot = null;
+        if (_listeners.isEmpty()) {
             return;
-        } else {
-            internalCopy(_lastState);
         }
-        setChanged();
-        notifyObservers();
+        BoardSnapshot snapshot = snapshot();
+        for (Delivery delivery : _listeners) {
+            delivery.post(snapshot);
+        }
     }
 
+    /** Return the number of moves that may currently be undone. */
+    int movesMade() {
+        return _position.movesMade();
+    }
 
     @Override
     public boolean equals(Object object) {
-        if (object instanceof Board) {
-            Board boardCast = (Board) object;
-            String bStr = boardCast.toString();
-            String bStr0 = toString();
-            PieceColor bWhoseMove = boardCast.whoseMove();
-            return (bStr.equals(toString())
-                    && _whoseMove == boardCast.whoseMove());
-        }
-        return false;
+        return object instanceof Board
+            && _position.equals(((Board) object)._position);
     }
 
     @Override
     public int hashCode() {
-        return super.hashCode();
+        return _position.hashCode();
     }
 
     @Override
@@ -536,34 +257,7 @@ class Board extends Observable {
     /** Return a text depiction of the board.  If LEGEND, supply row and
      *  column numbers around the edges. */
     String toString(boolean legend) {
-        Formatter out = new Formatter();
-        boolean yessir = false;
-        if (legend) {
-            out.format("1 2 3 4 5\n");
-        }
-        String col1, col2, col3, col4, col5, leg;
-        leg = "";
-        for (int i = 4; i >= 0; i--) {
-            if (legend) {
-                out.format("1 2 3 4 5\n");
-                leg = new String[]{"a", "b", "c", "d", "e"}[i];
-                yessir = true;
-            }
-            col1 = get(i * 5).shortName();
-            col2 = get(i * 5 + 1).shortName();
-            col3 = get(i * 5 + 2).shortName();
-            col4 = get(i * 5 + 3).shortName();
-            col5 = get(i * 5 + 4).shortName();
-            out.format("  %s%s %s %s %s %s%s",
-                       leg, col1, col2, col3, col4, col5, leg);
-            if (i != 0) {
-                out.format("\n");
-            }
-        }
-        if (yessir) {
-            out.format("/n  1 2 3 4 5");
-        }
-        return out.toString();
+        return _position.toString(legend);
     }
 
     /** Return true iff there is a move for the current player. */
@@ -571,71 +265,68 @@ class Board extends Observable {
         return false;
     }
 
-    /** Size of Board. */
-    private static final int BOARDSIZE = 25;
-
-    /** Max moveable white index. */
-    private static final int MAXWHITE = 20;
-
-    /** Min moveable white index. */
-    private static final int MINBLACK = 4;
-
-    /** Player that is on move. */
-    private PieceColor _whoseMove;
-
-    /** Set true when game ends. */
-    private boolean _gameOver;
+    /** The game state I display.  Search is done on separate Positions
+     *  (see copyPosition), which have no listeners to tell. */
+    private final Position _position;
 
-    /** Sets a last state for undo to revert to. */
-    private Board _lastState;
+    /** Snapshot of _position, if one has been made since it last
+     *  changed, and otherwise null. */
+    private BoardSnapshot _snapshot;
 
-    /** Returns a board's last state. */
-    public Board getLastState() {
-        return _lastState;
-    }
+    /** Deliveries to my listeners.  The list is copied when a listener is
+     *  added or removed, so announcing a change takes no lock. */
+    private final CopyOnWriteArrayList<Delivery> _listeners =
+        new CopyOnWriteArrayList<>();
 
     /** Convenience value giving values of pieces at each ordinal position. */
     static final PieceColor[] PIECE_VALUES = PieceColor.values();
 
-    /** One cannot create arrays of ArrayList<Move>, so we introduce
-     *  a specialized private list type for this purpose. */
-    private static class MoveList extends ArrayList<Move> {
-    }
+    /** Delivers snapshots to one listener, by way of an Executor.  At
+     *  most one task delivering to the listener is pending or running at
+     *  any time. */
+    private static class Delivery implements Runnable {
 
-    /** A read-only view of a Board. */
-    private class ConstantBoard extends Board implements Observer {
-        /** A constant view of this Board. */
-        ConstantBoard() {
-            super(Board.this);
-            Board.this.addObserver(this);
+        /** A Delivery to LISTENER using EXECUTOR. */
+        Delivery(BoardListener listener, Executor executor) {
+            _listener = listener;
+            _executor = executor;
         }
 
-        @Override
-        void copy(Board b) {
-            assert false;
+        /** Arrange to deliver SNAPSHOT, replacing any snapshot not yet
+         *  delivered. */
+        void post(BoardSnapshot snapshot) {
+            if (_pending.getAndSet(snapshot) == null) {
+                _executor.execute(this);
+            }
         }
 
+        /** Deliver the latest snapshot.  Whether or not the listener
+         *  throws an exception, deliver again if another snapshot was
+         *  posted meanwhile, and otherwise clear _pending, so that the
+         *  next post starts a new delivery. */
         @Override
-        void clear() {
-            assert false;
+        public void run() {
+            BoardSnapshot snapshot = _pending.get();
+            try {
+                _listener.boardChanged(snapshot);
+            } finally {
+                if (!_pending.compareAndSet(snapshot, null)) {
+                    _executor.execute(this);
+                }
+            }
         }
 
-        @Override
-        void makeMove(Move move) {
-            assert false;
-        }
+        /** The listener I deliver to. */
+        private final BoardListener _listener;
 
-        /** Undo the last move. */
-        @Override
-        void undo() {
-            assert false;
-        }
+        /** Runs my deliveries. */
+        private final Executor _executor;
 
-        @Override
-        public void update(Observable obs, Object arg) {
-            super.copy((Board) obs);
-            setChanged();
-            notifyObservers(arg);
-        }
+        /** The latest snapshot not yet delivered, or null if there is
+         *  none and no delivery is pending.  A snapshot remains here
+         *  while it is being delivered, so that posts made in the
+         *  meantime do not start another delivery. */
+        private final AtomicReference<BoardSnapshot> _pending =
+            new AtomicReference<>();
     }
 }
@@ -0,0 +1,13 @@
+package qirkat;
+
+/** An object that is told of changes to a Board.
+ *  @author Noah Alcus
+ */
+interface BoardListener {
+
+    /** Respond to a change in a Board, whose new contents are SNAPSHOT.
+     *  When changes come faster than they are delivered, only the latest
+     *  is delivered. */
+    void boardChanged(BoardSnapshot snapshot);
+
+}
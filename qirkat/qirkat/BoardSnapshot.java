@@ -0,0 +1,83 @@
+package qirkat;
+
+import java.util.ArrayList;
+
+/** An unchangeable copy of the contents of a Board at some moment.  A
+ *  snapshot may be shared freely among threads, and remains valid after
+ *  the Board it came from changes.
+ *  @author Noah Alcus
+ */
+final class BoardSnapshot {
+
+    /** A snapshot of POSITION, as it is now. */
+    BoardSnapshot(Position position) {
+        _position = new Position(position);
+    }
+
+    /** Return the contents of square C R, where 'a' <= C <= 'e', and
+     *  '1' <= R <= '5'.  */
+    PieceColor get(char c, char r) {
+        return _position.get(c, r);
+    }
+
+    /** Return the contents of the square at linearized index K. */
+    PieceColor get(int k) {
+        return _position.get(k);
+    }
+
+    /** Return the color of the player who has the next move.  The value
+     *  is arbitrary if gameOver(). */
+    PieceColor whoseMove() {
+        return _position.whoseMove();
+    }
+
+    /** Return true iff the game is over. */
+    boolean gameOver() {
+        return _position.gameOver();
+    }
+
+    /** Return the number of moves made to reach this position since the
+     *  last clear() or setPieces of its Board. */
+    int movesMade() {
+        return _position.movesMade();
+    }
+
+    /** Return the hash key of this position (see Position.key()). */
+    long key() {
+        return _position.key();
+    }
+
+    /** Return true iff MOV is legal in this position. */
+    boolean legalMove(Move mov) {
+        return _position.legalMove(mov);
+    }
+
+    /** Return a list of all legal moves from this position.  Generating
+     *  moves changes the position temporarily, and so is done on a
+     *  private copy, leaving _position untouched for other readers. */
+    ArrayList<Move> getMoves() {
+        ArrayList<Move> result = new ArrayList<>();
+        new Position(_position).getMoves(result);
+        return result;
+    }
+
+    /** Copy this position into P. */
+    void copyPosition(Position p) {
+        p.copy(_position);
+    }
+
+    @Override
+    public String toString() {
+        return _position.toString();
+    }
+
+    /** Return a text depiction of this position.  If LEGEND, supply row
+     *  and column numbers around the edges. */
+    String toString(boolean legend) {
+        return _position.toString(legend);
+    }
+
+    /** The contents of this snapshot, which are never changed. */
+    private final Position _position;
+
+}
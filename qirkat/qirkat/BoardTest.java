@@ -64,6 +64,55 @@ public class BoardTest {
         assertEquals("second pass failed to reach same position", b2, b0);
     }
 
+    @Test
+    public void testDeepUndo() {
+        Board b = new Board();
+        String init4 = "--w-- ----- ----- ----- --b--";
+        b.setPieces(init4, WHITE);
+        b.makeMove('c', '1', 'b', '1');
+        b.makeMove('c', '5', 'd', '5');
+        b.makeMove('b', '1', 'b', '2');
+        b.makeMove('d', '5', 'd', '4');
+        assertEquals(4, b.movesMade());
+        b.undo();
+        b.undo();
+        assertEquals(2, b.getMoves().size());
+        b.undo();
+        b.undo();
+        assertEquals(0, b.movesMade());
+        assertEquals(5, b.getMoves().size());
+        b.undo();
+        assertEquals(WHITE, b.whoseMove());
+    }
+
+    @Test
+    public void testKeys() {
+        Board b0 = new Board();
+        Board b1 = new Board();
+        String init = "w---w ----- ----- ----- b---b";
+        b0.setPieces(init, WHITE);
+        b1.setPieces(init, WHITE);
+        long start = b0.key();
+        makeMoves(b0, new String[] { "a1-a2", "a5-a4", "e1-e2" });
+        makeMoves(b1, new String[] { "e1-e2", "a5-a4", "a1-a2" });
+        assertEquals(b0.key(), b1.key());
+        assertEquals(b0, b1);
+        assertEquals(b0.hashCode(), b1.hashCode());
+        Board b2 = new Board();
+        b2.setPieces("----- w---w ----- b---- ----b", BLACK);
+        assertEquals(b2, b0);
+        assertEquals(b2.key(), b0.key());
+        b0.makeMove(Move.parseMove("e5-d5"));
+        b2.setPieces("----- w---w ----- b---- ---b-", WHITE);
+        assertEquals(b2.toString(), b0.toString());
+        assertNotEquals(b2, b0);
+        b0.undo();
+        b0.undo();
+        b0.undo();
+        b0.undo();
+        assertEquals(start, b0.key());
+    }
+
     @Test
     public void testBoard() {
         Board b = new Board();
@@ -204,5 +253,136 @@ public class BoardTest {
 
         assertEquals(true, b.legalMove(Move.parseMove("a1-a3-c3-e3-c5-a3")));
     }
-}
 
+    /** Return the positional value of B, computed from its contents. */
+    private static int positionalValue(Board b) {
+        int value = 0;
+        for (int k = 0; k <= Move.MAX_INDEX; k += 1) {
+            if (b.get(k) == WHITE) {
+                value += Evaluation.SQUARES[WHITE.ordinal()][k];
+            } else if (b.get(k) == BLACK) {
+                value -= Evaluation.SQUARES[BLACK.ordinal()][k];
+            }
+        }
+        return value;
+    }
+
+    @Test
+    public void testPositionalValue() {
+        Board b = new Board();
+        int initial = b.positionalValue();
+        assertEquals(0, initial);
+        for (String s : GAME1) {
+            b.makeMove(Move.parseMove(s));
+            assertEquals(positionalValue(b), b.positionalValue());
+        }
+        assertEquals(10, b.pieceCount(WHITE));
+        assertEquals(8, b.pieceCount(BLACK));
+        while (b.movesMade() > 0) {
+            b.undo();
+            assertEquals(positionalValue(b), b.positionalValue());
+        }
+        assertEquals(initial, b.positionalValue());
+    }
+
+    @Test
+    public void testCountMoves() {
+        Board b = new Board();
+        for (String s : GAME1) {
+            assertEquals(b.getMoves().size(), b.countMoves());
+            assertTrue(b.hasAnyMove());
+            b.makeMove(Move.parseMove(s));
+        }
+        assertEquals(b.getMoves().size(), b.countMoves());
+        b.setPieces("w---- ----- ----- ----- ----b", WHITE);
+        assertEquals(3, b.countMoves());
+        assertEquals(3, b.mobility(WHITE));
+        assertEquals(3, b.mobility(BLACK));
+        b.setPieces("----- ----- ----- ----- w---b", WHITE);
+        assertFalse(b.hasAnyMove());
+        assertTrue(b.gameOver());
+        assertEquals(0, b.countMoves());
+    }
+
+    @Test
+    public void testLegalMoveDirect() {
+        Board b = new Board();
+        b.setPieces("----- --w-- --b-- ----- b----", WHITE);
+        assertTrue(b.legalMove(Move.parseMove("c2-c4")));
+        assertFalse(b.legalMove(Move.parseMove("c2-c3")));
+        assertFalse(b.legalMove(Move.parseMove("c2-d2")));
+        assertFalse(b.legalMove(Move.parseMove("a5-a4")));
+        b.setPieces("--w-- --b-- ----- --b-- -----", WHITE);
+        assertFalse(b.legalMove(Move.parseMove("c1-c3")));
+        assertTrue(b.checkJump(Move.parseMove("c1-c3"), true));
+        assertTrue(b.legalMove(Move.parseMove("c1-c3-c5")));
+        assertFalse(b.legalMove(Move.parseMove("c1-c3-c5-c3")));
+        assertFalse(b.legalMove(Move.parseMove("c1-b1")));
+    }
+
+    @Test
+    public void testListeners() {
+        Board b = new Board();
+        ArrayList<BoardSnapshot> told = new ArrayList<>(),
+            toldLater = new ArrayList<>();
+        ArrayList<Runnable> tasks = new ArrayList<>();
+        b.addListener(told::add);
+        b.addListener(toldLater::add, tasks::add);
+        assertEquals(1, told.size());
+        assertEquals(1, tasks.size());
+        b.makeMove(Move.parseMove("c2-c3"));
+        b.makeMove(Move.parseMove("c4-c2"));
+        assertEquals(3, told.size());
+        assertEquals(2, told.get(2).movesMade());
+        assertEquals("c4-c2", told.get(1).getMoves().get(0).toString());
+        assertEquals(1, tasks.size());
+        tasks.remove(0).run();
+        assertEquals(1, toldLater.size());
+        assertSame(told.get(2), toldLater.get(0));
+        assertTrue(tasks.isEmpty());
+        b.undo();
+        assertEquals(1, tasks.size());
+        assertEquals(1, b.snapshot().movesMade());
+        assertEquals(2, told.get(2).movesMade());
+    }
+
+    @Test
+    public void testFailingListener() {
+        Board b = new Board();
+        ArrayList<Runnable> tasks = new ArrayList<>();
+        int[] calls = { 0 };
+        b.addListener(snapshot -> {
+            calls[0] += 1;
+            throw new IllegalStateException("listener failed");
+        }, tasks::add);
+        try {
+            tasks.remove(0).run();
+            fail("exception not propagated");
+        } catch (IllegalStateException excp) {
+            assertEquals(1, calls[0]);
+        }
+        b.makeMove(Move.parseMove("c2-c3"));
+        assertEquals(1, tasks.size());
+    }
+
+    @Test
+    public void testPerft() {
+        Position start = new Position();
+        assertEquals(1, new Perft(1, 0).count(start, 0));
+        assertEquals(4, new Perft(1, 0).count(start, 1));
+        assertEquals(1826, new Perft(1, 0).count(start, 8));
+        Perft parallel = new Perft(3, 1);
+        assertEquals(1826, parallel.count(start, 8));
+        parallel.shutdown();
+        ArrayList<Move> moves = new ArrayList<>();
+        long[] counts = new Perft(1, 1).divide(start, 3, moves);
+        assertEquals(moves.size(), counts.length);
+        assertEquals(start.getMoves(), moves);
+        long total;
+        total = 0;
+        for (long n : counts) {
+            total += n;
+        }
+        assertEquals(6, total);
+    }
+}
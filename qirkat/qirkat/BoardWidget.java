@@ -5,17 +5,16 @@ import ucb.gui2.Pad;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.BasicStroke;
-import java.util.Observer;
-import java.util.Observable;
-
 import java.awt.event.MouseEvent;
 
+import javax.swing.SwingUtilities;
+
 import static qirkat.PieceColor.*;
 
 /** Widget for displaying a Qirkat board.
  *  @author Noah "what are visual aesthetics of a game" Alcus
  */
-class BoardWidget extends Pad implements Observer {
+class BoardWidget extends Pad implements BoardListener {
 
     /** Length of side of one square, in pixels. */
     static final int SQDIM = 50;
@@ -40,14 +39,11 @@ class BoardWidget extends Pad implements Observer {
     /** Stroke for outlining pieces. */
     private static final BasicStroke OUTLINE_STROKE = LINE_STROKE;
 
-    /** Model being displayed. */
-    private static Board _model;
-
-    /** A new widget displaying MODEL. */
+    /** A new widget displaying MODEL.  Changes to MODEL reach me on the
+     *  event-dispatching thread, so that painting never delays the game. */
     BoardWidget(Board model) {
-        _model = model;
         setMouseHandler("click", this::readMove);
-        _model.addObserver(this);
+        model.addListener(this, SwingUtilities::invokeLater);
         _dim = SQDIM * SIDE;
         setPreferredSize(_dim, _dim);
     }
@@ -63,6 +59,29 @@ class BoardWidget extends Pad implements Observer {
     public synchronized void paintComponent(Graphics2D g) {
         g.setColor(BLANK_COLOR);
         g.fillRect(0, 0, _dim, _dim);
+        BoardSnapshot snapshot = _snapshot;
+        if (snapshot == null) {
+            return;
+        }
+        for (char c = 'a'; c < 'a' + SIDE; c += 1) {
+            for (char r = '1'; r < '1' + SIDE; r += 1) {
+                PieceColor piece = snapshot.get(c, r);
+                if (piece != EMPTY) {
+                    drawPiece(g, c, r, piece);
+                }
+            }
+        }
+    }
+
+    /** Draw PIECE on the square at column C and row R with G. */
+    private void drawPiece(Graphics2D g, char c, char r, PieceColor piece) {
+        int x = (c - 'a') * SQDIM + SQDIM / 2 - PIECE_RADIUS,
+            y = (SIDE - 1 - (r - '1')) * SQDIM + SQDIM / 2 - PIECE_RADIUS;
+        g.setColor(piece == WHITE ? WHITE_COLOR : BLACK_COLOR);
+        g.fillOval(x, y, 2 * PIECE_RADIUS, 2 * PIECE_RADIUS);
+        g.setColor(LINE_COLOR);
+        g.setStroke(OUTLINE_STROKE);
+        g.drawOval(x, y, 2 * PIECE_RADIUS, 2 * PIECE_RADIUS);
     }
 
     /** Notify observers of mouse's current position from click event WHERE. */
@@ -81,13 +100,18 @@ class BoardWidget extends Pad implements Observer {
     }
 
     @Override
-    public synchronized void update(Observable model, Object arg) {
+    public void boardChanged(BoardSnapshot snapshot) {
+        _snapshot = snapshot;
         repaint();
     }
 
     /** Dimension of current drawing surface in pixels. */
     private int _dim;
 
+    /** The most recent contents of the board displayed, as drawn by
+     *  paintComponent. */
+    private volatile BoardSnapshot _snapshot;
+
     /** A partial Move indicating selected squares. */
     private Move _selectedMove;
 }
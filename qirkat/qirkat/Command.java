@@ -18,6 +18,7 @@ class Command {
         /* Start-up state only. */
         AUTO("(?i)auto\\s+(white|black)"),
         MANUAL("(?i)manual\\s+(white|black)"),
+        MCTS("(?i)mcts\\s+(white|black)"),
         SEED("seed\\s+(\\d+)"),
         START,
         SETBOARD("(?i)set\\s+(white|black)\\s+((?:[bw-]\\s*){25})"),
@@ -25,6 +26,8 @@ class Command {
         PIECEMOVE("([a-e][1-5](?:-[a-e][1-5])+)"),
         /* Valid at any time. */
         LOAD("load\\s+(\\S+)"),
+        PERFT("(?i)perft\\s+(\\d+)"),
+        BENCH("(?i)bench(?:\\s+(\\d+))?"),
         QUIT, CLEAR, DUMP, HELP,
         /* Special "commands" internally generated. */
         /** Syntax error in command. */
@@ -3,6 +3,9 @@ package qirkat;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
+import java.io.File;
+import java.io.IOException;
+
 import qirkat.Command.Type;
 import static qirkat.Command.Type.*;
 
@@ -36,6 +39,13 @@ public class CommandTest {
         checkError("auto red foo");
     }
 
+    @Test public void testMCTS() {
+        check("mcts white", MCTS, "white");
+        check("MCTS black", MCTS, "black");
+        checkError("mcts green");
+        checkError("mcts");
+    }
+
     @Test public void testSEED() {
         check("seed 142", SEED, "142");
         checkError("seed");
@@ -68,4 +78,56 @@ public class CommandTest {
         checkError("a7-a8");
     }
 
+    @Test public void testBENCH() {
+        check("bench", BENCH, new String[] { null });
+        check("bench 10", BENCH, "10");
+        checkError("bench foo");
+    }
+
+    /** A Reporter that records the total number of nodes reported by
+     *  Bench.report. */
+    static class BenchReporter implements Reporter {
+        @Override
+        public void errMsg(String format, Object... operands) {
+        }
+
+        @Override
+        public void outcomeMsg(String format, Object... operands) {
+        }
+
+        @Override
+        public void moveMsg(String format, Object... operands) {
+            if (format.startsWith("Depth")) {
+                _nodes = (Long) operands[1];
+            }
+        }
+
+        /** The total number of nodes reported. */
+        private long _nodes;
+    }
+
+    /** Return the total number of nodes searched by the bench command to
+     *  depth BENCH_DEPTH with OPTIONS. */
+    static long benchNodes(SearchOptions options) {
+        BenchReporter out = new BenchReporter();
+        Bench.report(BENCH_DEPTH, options, out);
+        return out._nodes;
+    }
+
+    @Test public void testBenchSignature() throws IOException {
+        SearchOptions options = new SearchOptions();
+        options.setHashMegabytes(1);
+        long nodes = benchNodes(options);
+        assertTrue(nodes > 0);
+        File file = File.createTempFile("qirkat-book", ".qob");
+        file.deleteOnExit();
+        new OpeningBookBuilder(options).build(0, 2, file,
+                                              new BenchReporter());
+        options.setBook(file);
+        assertEquals(nodes, benchNodes(options));
+    }
+
+    /** Depth of the searches by the bench command that are compared. */
+    static final int BENCH_DEPTH = 6;
+
 }
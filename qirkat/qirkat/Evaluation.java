@@ -0,0 +1,70 @@
+package qirkat;
+
+import static qirkat.PieceColor.*;
+import static qirkat.Move.*;
+
+/** Weights used in estimating the value of a Qirkat position.  The
+ *  value is the difference in material between white and black, plus a
+ *  positional term: the sum of the values of the squares occupied by
+ *  white pieces less that for black pieces, plus a mobility term
+ *  proportional to the difference in the numbers of non-capturing moves
+ *  available to each side.  A Position maintains its positional term as
+ *  pieces are moved (see Position.positionalValue()).
+ *  @author Noah Alcus
+ */
+class Evaluation {
+
+    /** The value of one piece. */
+    static final int PIECE_VALUE = 100;
+
+    /** The value of each non-capturing move (see Position.mobility). */
+    static final int MOBILITY_VALUE = 2;
+
+    /** SQUARES[C][K] is the positional value of a piece with ordinal C on
+     *  the square with linearized index K.  The row for EMPTY is all
+     *  zeros. */
+    static final int[][] SQUARES =
+        new int[PieceColor.values().length][Bitboard.SQUARES];
+
+    /** Return the sum of VALUES[K] for each square K in MASK. */
+    static int squares(int[] values, int mask) {
+        int result;
+        result = 0;
+        for (; mask != 0; mask &= mask - 1) {
+            result += values[Bitboard.first(mask)];
+        }
+        return result;
+    }
+
+    /** Value of a white piece on each row, counting from its own side.  A
+     *  piece gains by advancing, but one on the far row may no longer
+     *  move except by capturing. */
+    private static final int[] ADVANCEMENT = { 0, 4, 8, 10, 2 };
+
+    /** Value of a piece on one of the nine central squares, and the
+     *  additional value of the center square itself. */
+    private static final int CENTRAL = 3, CENTER = 2;
+
+    /** Value of a piece on a square connected to the diagonals, from
+     *  which it has more moves. */
+    private static final int DIAGONAL = 2;
+
+    static {
+        for (int k = 0; k < Bitboard.SQUARES; k += 1) {
+            int c = k % SIDE, r = k / SIDE;
+            int value = ADVANCEMENT[r];
+            if (c > 0 && c < SIDE - 1 && r > 0 && r < SIDE - 1) {
+                value += CENTRAL;
+            }
+            if (c == SIDE / 2 && r == SIDE / 2) {
+                value += CENTER;
+            }
+            if (k % 2 == 0) {
+                value += DIAGONAL;
+            }
+            SQUARES[WHITE.ordinal()][k] = value;
+            SQUARES[BLACK.ordinal()][MAX_INDEX - k] = value;
+        }
+    }
+
+}
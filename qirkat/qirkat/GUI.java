@@ -24,10 +24,9 @@ class GUI extends TopLevel implements Observer, Reporter {
      * unnecessary as possible for the rest of the program to know that it
      * is interacting with a GUI as opposed to a terminal.
      *
-     * To this end, we first have made Board observable, so that the
-     * GUI gets notified of changes to a Game's board and can interrogate
-     * it as needed, while the Game and Board themselves need not be aware
-     * that it is being watched.
+     * To this end, we first have made Board accept listeners, so that the
+     * GUI gets snapshots of a Game's board as it changes, while the Game
+     * and Board themselves need not be aware that it is being watched.
      *
      * Second, instead of creating a new API by which the GUI communicates
      * with a Game, we instead simply arrange to make the GUI's input look
@@ -62,7 +61,6 @@ class GUI extends TopLevel implements Observer, Reporter {
                            "ibottom", 5));
         setMinimumSize(MIN_SIZE, MIN_SIZE);
         _widget.addObserver(this);
-        _model.addObserver(this);
     }
 
     /** Execute the "Quit" button function. */
@@ -117,10 +115,8 @@ class GUI extends TopLevel implements Observer, Reporter {
 
     @Override
     public void update(Observable obs, Object arg) {
-        if (obs == _model) {
-            _widget.update(obs, arg);
-        } else if (obs == _widget) {
-
+        if (obs == _widget) {
+            movePiece((String) arg);
         }
     }
 
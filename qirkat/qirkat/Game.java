@@ -29,10 +29,17 @@ class Game {
     /** A new Game, using BOARD to play on, reading initially from
      *  BASESOURCE and using REPORTER for error and informational messages. */
     Game(Board board, CommandSource baseSource, Reporter reporter) {
+        this(board, baseSource, reporter, new SearchOptions());
+    }
+
+    /** A new Game, as for Game(BOARD, BASESOURCE, REPORTER), whose AIs
+     *  search as directed by OPTIONS. */
+    Game(Board board, CommandSource baseSource, Reporter reporter,
+         SearchOptions options) {
         _inputs.addSource(baseSource);
         _board = board;
-        _constBoard = _board.constantView();
         _reporter = reporter;
+        _options = options;
     }
 
     /** Run a session of Qirkat gaming. */
@@ -88,6 +95,8 @@ class Game {
                     currPlayer = black;
                 }
             }
+            white.stop();
+            black.stop();
             if (_state == PLAYING) {
                 reportWinner();
             }
@@ -99,8 +108,10 @@ class Game {
     private Player createBlack() {
         if (_blackIsManual) {
             return new Manual(this, BLACK);
+        } else if (_blackIsMCTS) {
+            return new MCTS(this, BLACK);
         } else {
-            return new AI(this, BLACK, 12);
+            return new AI(this, BLACK);
         }
     }
 
@@ -108,14 +119,21 @@ class Game {
     private Player createWhite() {
         if (_whiteIsManual) {
             return new Manual(this, WHITE);
+        } else if (_whiteIsMCTS) {
+            return new MCTS(this, WHITE);
         } else {
-            return new AI(this, WHITE, 6);
+            return new AI(this, WHITE);
         }
     }
 
-    /** Return a read-only view of my game board. */
-    Board board() {
-        return _constBoard;
+    /** Return the search options used by my AIs. */
+    SearchOptions options() {
+        return _options;
+    }
+
+    /** Return a snapshot of my game board as it is now. */
+    BoardSnapshot board() {
+        return _board.snapshot();
     }
 
     /** Perform the next command from our input source. */
@@ -174,9 +192,9 @@ class Game {
     void doAuto(String[] operands) {
         _state = SETUP;
         if (operands[0].toLowerCase().equals("white")) {
-            _whiteIsManual = false;
+            _whiteIsManual = _whiteIsMCTS = false;
         } else if (operands[0].toLowerCase().equals("black")) {
-            _blackIsManual = false;
+            _blackIsManual = _blackIsMCTS = false;
         } else {
             doError(operands);
         }
@@ -222,8 +240,25 @@ class Game {
         _state = SETUP;
         if (operands[0].toLowerCase().equals("white")) {
             _whiteIsManual = true;
+            _whiteIsMCTS = false;
         } else if (operands[0].toLowerCase().equals("black")) {
             _blackIsManual = true;
+            _blackIsMCTS = false;
+        } else {
+            doError(operands);
+        }
+    }
+
+    /** Perform the command 'mcts OPERANDS[0]': let that player choose
+     *  moves by Monte Carlo tree search (see MCTS). */
+    void doMcts(String[] operands) {
+        _state = SETUP;
+        if (operands[0].toLowerCase().equals("white")) {
+            _whiteIsManual = false;
+            _whiteIsMCTS = true;
+        } else if (operands[0].toLowerCase().equals("black")) {
+            _blackIsManual = false;
+            _blackIsMCTS = true;
         } else {
             doError(operands);
         }
@@ -250,6 +285,7 @@ class Game {
     void doClear(String[] unused) {
         _whiteIsManual = true;
         _blackIsManual = false;
+        _whiteIsMCTS = _blackIsMCTS = false;
         _state = SETUP;
         _board.clear();
     }
@@ -268,6 +304,41 @@ class Game {
         _board.setPieces(operands[1], pc);
     }
 
+    /** Perform the command 'perft OPERANDS[0]': count the positions
+     *  OPERANDS[0] moves from the current one, reporting the count after
+     *  each legal move and the speed of counting. */
+    void doPerft(String[] operands) {
+        int depth;
+        try {
+            depth = Integer.parseInt(operands[0]);
+        } catch (NumberFormatException excp) {
+            throw error("depth too large");
+        }
+        Position start = new Position();
+        _board.copyPosition(start);
+        Perft perft = new Perft(_options.threads(), 0);
+        try {
+            perft.report(start, depth, true, _reporter);
+        } finally {
+            perft.shutdown();
+        }
+    }
+
+    /** Perform the command 'bench [OPERANDS[0]]': search the built-in
+     *  positions (see Bench) to depth OPERANDS[0], if present, and
+     *  otherwise to the default depth, and report the nodes searched
+     *  and the time taken. */
+    void doBench(String[] operands) {
+        int depth;
+        try {
+            depth = operands[0] == null ? Bench.DEFAULT_DEPTH
+                : Integer.parseInt(operands[0]);
+        } catch (NumberFormatException excp) {
+            throw error("depth too large");
+        }
+        Bench.report(depth, _options, _reporter);
+    }
+
     /** Perform the command 'dump'. */
     void doDump(String[] unused) {
         _reporter.moveMsg("===\n%s\n===", _board);
@@ -306,11 +377,14 @@ class Game {
         _commands.put(DUMP, this::doDump);
         _commands.put(HELP, this::doHelp);
         _commands.put(MANUAL, this::doManual);
+        _commands.put(MCTS, this::doMcts);
         _commands.put(PIECEMOVE, this::doMove);
         _commands.put(SEED, this::doSeed);
         _commands.put(SETBOARD, this::doSet);
         _commands.put(START, this::doStart);
         _commands.put(LOAD, this::doLoad);
+        _commands.put(PERFT, this::doPerft);
+        _commands.put(BENCH, this::doBench);
         _commands.put(QUIT, this::doQuit);
         _commands.put(ERROR, this::doError);
         _commands.put(EOF, this::doQuit);
@@ -319,14 +393,19 @@ class Game {
     /** Input source. */
     private final CommandSources _inputs = new CommandSources();
 
-    /** My board and its read-only view. */
-    private Board _board, _constBoard;
+    /** My board. */
+    private Board _board;
     /** Indicate which players are manual players (as opposed to AIs). */
     private boolean _whiteIsManual, _blackIsManual;
+    /** Indicate which non-manual players use Monte Carlo tree search (as
+     *  opposed to alpha-beta search). */
+    private boolean _whiteIsMCTS, _blackIsMCTS;
     /** Current game state. */
     private State _state;
     /** Used to send messages to the user. */
     private Reporter _reporter;
+    /** Search options for my AIs. */
+    private final SearchOptions _options;
     /** Source of pseudo-random numbers (used by AIs). */
     private Random _randoms = new Random();
     /** This is the game winnah. */
@@ -0,0 +1,514 @@
+package qirkat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import static qirkat.PieceColor.*;
+
+/** A Player that chooses its moves by Monte Carlo tree search.  It plays
+ *  out many games from the current position with random moves, growing
+ *  a tree of the positions at the start of those games.  Each playout
+ *  descends the tree by the UCT rule, which balances the moves that have
+ *  won most often against those tried least, adds a node where it leaves
+ *  the tree, and then continues with random moves to the end of the
+ *  game.  The move chosen is the one played out most often.
+ *
+ *  Each of several threads grows its own tree, with its own random
+ *  numbers (root parallelism), and the playouts of the moves at the
+ *  roots are added together.  The random numbers are seeded from the
+ *  game's (see Game.nextRandom), so that a game with a fixed seed and a
+ *  fixed number of playouts per move is reproducible.
+ *
+ *  The nodes of a tree are kept in preallocated arrays, whose size is set
+ *  by the search options.  When the arrays are full, playouts continue
+ *  from the leaves without adding nodes.  When the next move is chosen,
+ *  the part of each tree that is below the new position is moved to the
+ *  front of a second set of arrays, so that its playouts are reused and
+ *  the space of the rest is recycled.
+ *  @author Noah Alcus
+ */
+class MCTS extends Player {
+
+    /** A new MCTS player for GAME that will play MYCOLOR, using GAME's
+     *  search options. */
+    MCTS(Game game, PieceColor myColor) {
+        this(game, myColor, game.options());
+    }
+
+    /** A new MCTS player for GAME that will play MYCOLOR, using the time
+     *  budget, number of playouts, tree size, and number of threads given
+     *  by OPTIONS.  If neither the time nor the number of playouts is
+     *  limited, each move gets DEFAULT_PLAYOUTS playouts. */
+    MCTS(Game game, PieceColor myColor, SearchOptions options) {
+        super(game, myColor);
+        _timeBudget = options.timeBudget();
+        if (_timeBudget == 0 && options.playouts() == 0) {
+            _playouts = DEFAULT_PLAYOUTS;
+        } else {
+            _playouts = options.playouts();
+        }
+        int threads = options.threads();
+        long capacity = (long) options.treeMegabytes() * (1 << 20)
+            / (2 * Nodes.NODE_BYTES * threads);
+        capacity = Math.max(MIN_NODES, Math.min(capacity, MAX_NODES));
+        _trees = new Tree[threads];
+        for (int i = 0; i < threads; i += 1) {
+            _trees[i] = new Tree((int) capacity);
+        }
+        if (threads > 1) {
+            _pool = new ForkJoinPool(threads);
+        }
+    }
+
+    @Override
+    Move myMove() {
+        Main.startTiming();
+        Position start = new Position();
+        board().copyPosition(start);
+        ArrayList<Move> moves = start.getMoves();
+        Move move;
+        if (moves.size() <= 1) {
+            move = moves.isEmpty() ? null : moves.get(0);
+        } else {
+            move = search(start);
+        }
+        Main.endTiming();
+        return move;
+    }
+
+    @Override
+    boolean isAI() {
+        return true;
+    }
+
+    @Override
+    void stop() {
+        if (_pool != null) {
+            _pool.shutdown();
+        }
+    }
+
+    /** Return the number of playouts made while choosing my last
+     *  move. */
+    long playouts() {
+        return _lastPlayouts;
+    }
+
+    /** Return the move from START, which has at least two legal moves,
+     *  that my trees have played out most often, after growing each of
+     *  them until reaching my time budget or its share of my playouts. */
+    private Move search(Position start) {
+        long seed = game().nextRandom(Integer.MAX_VALUE);
+        long deadline;
+        if (_timeBudget > 0) {
+            deadline = System.currentTimeMillis() + _timeBudget;
+        } else {
+            deadline = Long.MAX_VALUE;
+        }
+        int share;
+        if (_playouts > 0) {
+            share = (_playouts + _trees.length - 1) / _trees.length;
+        } else {
+            share = Integer.MAX_VALUE;
+        }
+        for (int i = 0; i < _trees.length; i += 1) {
+            _trees[i].reroot(start);
+        }
+        if (_pool == null) {
+            _trees[0].grow(share, deadline, new Random(seed));
+        } else {
+            ArrayList<Callable<Void>> tasks = new ArrayList<>();
+            for (int i = 0; i < _trees.length; i += 1) {
+                Tree tree = _trees[i];
+                Random random = new Random(seed + i * SEED_STRIDE);
+                tasks.add(() -> {
+                    tree.grow(share, deadline, random);
+                    return null;
+                });
+            }
+            try {
+                for (Future<Void> result : _pool.invokeAll(tasks)) {
+                    result.get();
+                }
+            } catch (InterruptedException | ExecutionException excp) {
+                throw new IllegalStateException(excp);
+            }
+        }
+        return bestMove();
+    }
+
+    /** Return the move at the roots of my trees that has been played out
+     *  most often in all of them, reporting statistics if timing. */
+    private Move bestMove() {
+        Nodes firstTree = _trees[0]._nodes;
+        int count = firstTree._count[0];
+        long[] visits = new long[count], wins = new long[count];
+        long playouts, size;
+        playouts = size = 0;
+        for (Tree tree : _trees) {
+            Nodes nodes = tree._nodes;
+            assert nodes._count[0] == count;
+            for (int k = 0; k < count; k += 1) {
+                int child = nodes._first[0] + k;
+                assert nodes._move[child]
+                == firstTree._move[firstTree._first[0] + k];
+                visits[k] += nodes._visits[child];
+                wins[k] += nodes._wins[child];
+            }
+            playouts += tree._playouts;
+            size += nodes._size;
+        }
+        int best = 0;
+        for (int k = 1; k < count; k += 1) {
+            if (visits[k] > visits[best]) {
+                best = k;
+            }
+        }
+        _lastPlayouts = playouts;
+        Main.reportStats("[mcts: %d playouts, %d nodes, %.1f%% of playouts"
+                         + " won after best move]", playouts, size,
+                         visits[best] == 0 ? 0.0
+                         : 50.0 * wins[best] / visits[best]);
+        return Move.decode(firstTree._move[firstTree._first[0] + best]);
+    }
+
+    /** The nodes of a tree, kept in parallel arrays.  Node 0 is the root,
+     *  and the children of each node are consecutive. */
+    private static class Nodes {
+
+        /** Number of bytes used by each node. */
+        static final int NODE_BYTES = 5 * 4;
+
+        /** Space for CAPACITY nodes. */
+        Nodes(int capacity) {
+            _move = new int[capacity];
+            _first = new int[capacity];
+            _count = new int[capacity];
+            _visits = new int[capacity];
+            _wins = new int[capacity];
+        }
+
+        /** Return the number of nodes I have room for. */
+        int capacity() {
+            return _move.length;
+        }
+
+        /** Add a new unexpanded node reached by the move with code CODE,
+         *  with VISITS playouts and WINS half-wins, returning its
+         *  index. */
+        int add(int code, int visits, int wins) {
+            int node = _size;
+            _size += 1;
+            _move[node] = code;
+            _first[node] = UNEXPANDED;
+            _count[node] = 0;
+            _visits[node] = visits;
+            _wins[node] = wins;
+            return node;
+        }
+
+        /** Value of _first for a node whose children have not been
+         *  added. */
+        static final int UNEXPANDED = -1;
+
+        /** _move[N] is the code (see Move.code) of the move leading to
+         *  node N from its parent. */
+        final int[] _move;
+
+        /** _first[N] is the index of the first child of node N, or
+         *  UNEXPANDED, and _count[N] is the number of its children. */
+        final int[] _first, _count;
+
+        /** _visits[N] is the number of playouts through node N, and
+         *  _wins[N] is twice the number of them won by the player who
+         *  made _move[N], plus the number drawn. */
+        final int[] _visits, _wins;
+
+        /** The number of nodes in use. */
+        int _size;
+
+    }
+
+    /** A search tree grown by one thread. */
+    private static class Tree {
+
+        /** A tree with room for CAPACITY nodes. */
+        Tree(int capacity) {
+            _nodes = new Nodes(capacity);
+            _spare = new Nodes(capacity);
+        }
+
+        /** Make START the position at my root.  If START is my current
+         *  root or is one or two moves below it in my tree, keep the
+         *  part of my tree below it.  Otherwise, start a new tree. */
+        void reroot(Position start) {
+            int node = _nodes._size == 0 ? NOT_FOUND : find(start.key());
+            if (node == NOT_FOUND) {
+                _nodes._size = 0;
+                _nodes.add(0, 0, 0);
+            } else if (node != 0) {
+                compact(node);
+            }
+            _root.copy(start);
+            _playouts = 0;
+        }
+
+        /** Make playouts from my root until I have made LIMIT of them or
+         *  the time is past DEADLINE (as for System.currentTimeMillis),
+         *  choosing random moves with RANDOM. */
+        void grow(int limit, long deadline, Random random) {
+            for (int n = 0; n < limit; n += 1) {
+                if ((n & CLOCK_CHECK_INTERVAL) == 0 && n > 0
+                    && System.currentTimeMillis() > deadline) {
+                    break;
+                }
+                playout(random);
+                _playouts += 1;
+            }
+        }
+
+        /** Make one playout from my root, choosing random moves with
+         *  RANDOM, and record its result in the nodes it passed
+         *  through. */
+        private void playout(Random random) {
+            Nodes nodes = _nodes;
+            Position board = _root;
+            PieceColor rootMover = board.whoseMove();
+            int node, depth;
+            node = depth = 0;
+            _path[0] = 0;
+            while (nodes._first[node] != Nodes.UNEXPANDED
+                   && nodes._count[node] > 0) {
+                node = select(node, random);
+                board.makeMove(Move.decode(nodes._move[node]));
+                depth = push(depth, node);
+            }
+            if (nodes._first[node] == Nodes.UNEXPANDED
+                && (node == 0 || nodes._visits[node] > 0)
+                && expand(node, board) && nodes._count[node] > 0) {
+                node = nodes._first[node] + random.nextInt(nodes._count[node]);
+                board.makeMove(Move.decode(nodes._move[node]));
+                depth = push(depth, node);
+            }
+            PieceColor winner = finish(board, random);
+            for (int d = depth; d >= 0; d -= 1) {
+                int n = _path[d];
+                PieceColor mover = d % 2 == 1 ? rootMover
+                    : rootMover.opposite();
+                nodes._visits[n] += 1;
+                if (winner == mover) {
+                    nodes._wins[n] += 2;
+                } else if (winner == EMPTY) {
+                    nodes._wins[n] += 1;
+                }
+                if (d > 0) {
+                    board.undo();
+                }
+            }
+        }
+
+        /** Record NODE at index DEPTH + 1 of the current path, returning
+         *  DEPTH + 1. */
+        private int push(int depth, int node) {
+            depth += 1;
+            if (depth >= _path.length) {
+                _path = Arrays.copyOf(_path, 2 * _path.length);
+            }
+            _path[depth] = node;
+            return depth;
+        }
+
+        /** Return the child of NODE, which has children, through which to
+         *  continue a playout: one not yet played out, chosen with RANDOM,
+         *  if there is one, and otherwise the one with the largest upper
+         *  confidence bound on its rate of winning. */
+        private int select(int node, Random random) {
+            Nodes nodes = _nodes;
+            int first = nodes._first[node], count = nodes._count[node];
+            int start = random.nextInt(count);
+            double logVisits = Math.log(nodes._visits[node]);
+            int best = first;
+            double bestBound = -1.0;
+            for (int k = 0; k < count; k += 1) {
+                int child = first + (start + k) % count;
+                int visits = nodes._visits[child];
+                if (visits == 0) {
+                    return child;
+                }
+                double bound = nodes._wins[child] / (2.0 * visits)
+                    + EXPLORATION * Math.sqrt(logVisits / visits);
+                if (bound > bestBound) {
+                    best = child;
+                    bestBound = bound;
+                }
+            }
+            return best;
+        }
+
+        /** Add the children of NODE, whose position is BOARD, returning
+         *  false if there is no room for them. */
+        private boolean expand(int node, Position board) {
+            Nodes nodes = _nodes;
+            board.getMoves(_moves);
+            if (nodes._size + _moves.size() > nodes.capacity()) {
+                return false;
+            }
+            nodes._first[node] = nodes._size;
+            nodes._count[node] = _moves.size();
+            for (int k = 0; k < _moves.size(); k += 1) {
+                nodes.add(_moves.get(k), 0, 0);
+            }
+            return true;
+        }
+
+        /** Play random moves chosen with RANDOM from BOARD to the end of
+         *  the game, or until PLAYOUT_LIMIT moves have been made, and
+         *  return the winner, or EMPTY if the limit was reached.  BOARD is
+         *  restored afterwards. */
+        private PieceColor finish(Position board, Random random) {
+            PieceColor winner;
+            int plies;
+            for (plies = 0; true; plies += 1) {
+                board.getMoves(_moves);
+                if (_moves.size() == 0) {
+                    winner = board.whoseMove().opposite();
+                    break;
+                } else if (plies == PLAYOUT_LIMIT) {
+                    winner = EMPTY;
+                    break;
+                }
+                int k = random.nextInt(_moves.size());
+                board.makeMove(Move.decode(_moves.get(k)));
+            }
+            for (; plies > 0; plies -= 1) {
+                board.undo();
+            }
+            return winner;
+        }
+
+        /** Return the node for the position whose key is KEY, if it is my
+         *  root or one or two moves below it, and otherwise NOT_FOUND. */
+        private int find(long key) {
+            Nodes nodes = _nodes;
+            if (_root.key() == key) {
+                return 0;
+            }
+            int result = NOT_FOUND;
+            for (int k = 0; k < nodes._count[0] && result == NOT_FOUND;
+                 k += 1) {
+                int child = nodes._first[0] + k;
+                _root.makeMove(Move.decode(nodes._move[child]));
+                if (_root.key() == key) {
+                    result = child;
+                }
+                for (int j = 0; j < nodes._count[child]
+                         && result == NOT_FOUND; j += 1) {
+                    int grandchild = nodes._first[child] + j;
+                    _root.makeMove(Move.decode(nodes._move[grandchild]));
+                    if (_root.key() == key) {
+                        result = grandchild;
+                    }
+                    _root.undo();
+                }
+                _root.undo();
+            }
+            return result;
+        }
+
+        /** Replace my nodes with NODE and the nodes below it, with NODE
+         *  as the root.  They are copied breadth first into my spare
+         *  nodes, which then become my nodes. */
+        private void compact(int node) {
+            Nodes from = _nodes, to = _spare;
+            to._size = 0;
+            to.add(0, from._visits[node], from._wins[node]);
+            to._first[0] = node;
+            for (int i = 0; i < to._size; i += 1) {
+                int source = to._first[i];
+                if (from._first[source] == Nodes.UNEXPANDED) {
+                    to._first[i] = Nodes.UNEXPANDED;
+                    continue;
+                }
+                to._first[i] = to._size;
+                to._count[i] = from._count[source];
+                for (int k = 0; k < from._count[source]; k += 1) {
+                    int child = from._first[source] + k;
+                    int copy = to.add(from._move[child], from._visits[child],
+                                      from._wins[child]);
+                    to._first[copy] = child;
+                }
+            }
+            _spare = from;
+            _nodes = to;
+        }
+
+        /** Value returned by find for a position not in my tree. */
+        private static final int NOT_FOUND = -1;
+
+        /** My nodes, and the space into which they are compacted. */
+        private Nodes _nodes, _spare;
+
+        /** The position at my root.  Playouts make their moves on it and
+         *  then take them back. */
+        private final Position _root = new Position();
+
+        /** Buffer for the moves of the positions played out. */
+        private final MoveList _moves = new MoveList();
+
+        /** The nodes passed through by the current playout, from the
+         *  root. */
+        private int[] _path = new int[INITIAL_PATH_LENGTH];
+
+        /** Number of playouts made since my root was last set. */
+        private long _playouts;
+
+    }
+
+    /** Number of playouts per move when neither time nor playouts are
+     *  limited. */
+    static final int DEFAULT_PLAYOUTS = 20000;
+
+    /** Weight of the exploration term of the UCT rule (the square root of
+     *  2 in its original form). */
+    private static final double EXPLORATION = Math.sqrt(2.0);
+
+    /** Most moves in a playout, which is a draw if it reaches this
+     *  limit. */
+    private static final int PLAYOUT_LIMIT = 500;
+
+    /** Smallest and largest number of nodes in a tree. */
+    private static final long MIN_NODES = 1 << 10, MAX_NODES = 1 << 28;
+
+    /** The clock is checked when the number of playouts, masked by this
+     *  value, is 0. */
+    private static final int CLOCK_CHECK_INTERVAL = (1 << 6) - 1;
+
+    /** Initial length of the buffer for a playout's path in a tree. */
+    private static final int INITIAL_PATH_LENGTH = 64;
+
+    /** Difference between the seeds of the random numbers of successive
+     *  trees. */
+    private static final long SEED_STRIDE = 0x9E3779B97F4A7C15L;
+
+    /** Time allowed for each move in milliseconds, or 0 if unlimited. */
+    private final int _timeBudget;
+
+    /** Number of playouts per move, or 0 if limited only by time. */
+    private final int _playouts;
+
+    /** My search trees, one per thread. */
+    private final Tree[] _trees;
+
+    /** The threads growing my trees, or null if I use only one.  They
+     *  end when I am stopped. */
+    private ForkJoinPool _pool;
+
+    /** Number of playouts made while choosing my last move. */
+    private long _lastPlayouts;
+
+}
@@ -0,0 +1,68 @@
+package qirkat;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+import static qirkat.PieceColor.*;
+
+/** Tests of the MCTS player.
+ *  @author Noah Alcus
+ */
+public class MCTSTest {
+
+    /** Return the moves of a game between two MCTS players, each making
+     *  PLAYOUTS playouts per move with trees of TREEMB megabytes on
+     *  THREADS threads, with the game's random numbers seeded with
+     *  SEED, stopping after at most MOVES moves. */
+    private static ArrayList<Move> play(int playouts, int treeMB,
+                                        int threads, long seed,
+                                        int moves) {
+        SearchOptions options = new SearchOptions();
+        options.setTimeBudget(0);
+        options.setPlayouts(playouts);
+        options.setTreeMegabytes(treeMB);
+        options.setThreads(threads);
+        Board board = new Board();
+        Game game = new Game(board, null, new TextReporter(), options);
+        game.doSeed(new String[] { Long.toString(seed) });
+        MCTS white = new MCTS(game, WHITE), black = new MCTS(game, BLACK);
+        ArrayList<Move> result = new ArrayList<>();
+        while (!board.gameOver() && result.size() < moves) {
+            MCTS player = board.whoseMove() == WHITE ? white : black;
+            Move move = player.myMove();
+            assertTrue(board.legalMove(move));
+            board.makeMove(move);
+            result.add(move);
+        }
+        white.stop();
+        black.stop();
+        return result;
+    }
+
+    @Test
+    public void testReproducible() {
+        assertEquals(play(PLAYOUTS, 1, 1, 1, MOVES),
+                     play(PLAYOUTS, 1, 1, 1, MOVES));
+        assertEquals(play(PLAYOUTS, 1, 2, 2, MOVES),
+                     play(PLAYOUTS, 1, 2, 2, MOVES));
+    }
+
+    @Test
+    public void testFullTree() {
+        ArrayList<Move> moves = play(10 * PLAYOUTS, 1, 1, 3, 1000);
+        Board board = new Board();
+        for (Move move : moves) {
+            board.makeMove(move);
+        }
+        assertTrue(board.gameOver());
+    }
+
+    /** Playouts per move in the games played. */
+    private static final int PLAYOUTS = 2000;
+
+    /** Moves made in the games compared. */
+    private static final int MOVES = 12;
+
+}
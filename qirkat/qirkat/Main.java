@@ -10,12 +10,14 @@ import java.io.PipedWriter;
 public class Main {
 
     /** Run Qirkat game.  Use display if ARGS[k] is '--display', timing
-     *  if ARGS[k] is "--timing". */
+     *  if ARGS[k] is "--timing".  Other arguments of the form
+     *  --NAME=VALUE set search options (see SearchOptions). */
     public static void main(String[] args) {
         boolean useGUI;
         System.out.println("CS61B Qirkat! Version 2.0");
         useGUI = false;
         _timing = false;
+        SearchOptions options = new SearchOptions();
         for (int i = 0; i < args.length; i += 1) {
             switch (args[i]) {
             case "--display":
@@ -25,7 +27,9 @@ public class Main {
                 _timing = true;
                 break;
             default:
-                usage();
+                if (!options.parse(args[i])) {
+                    usage();
+                }
                 break;
             }
         }
@@ -43,7 +47,7 @@ public class Main {
                                 new ReaderSource(new PipedReader(writer,
                                                                  BUFFER_LEN),
                                                  false),
-                                display);
+                                display, options);
                 display.display(true);
             } catch (IOException excp) {
                 System.err.printf("Could not connect to display.%n");
@@ -53,7 +57,7 @@ public class Main {
             game = new Game(board,
                             new ReaderSource(new InputStreamReader(System.in),
                                              true),
-                            new TextReporter());
+                            new TextReporter(), options);
         }
         game.process();
     }
@@ -61,7 +65,11 @@ public class Main {
     /** Give usage message and exit. */
     static void usage() {
         System.err.println("Usage: java qirkat.Main [--display] [--timing]"
-                           + " [--strict]");
+                           + " [--strict] [--hash=MB] [--time=MSEC]"
+                           + " [--depth=N] [--threads=N]"
+                           + " [--tablebases=DIR] [--book=FILE]"
+                           + " [--ponder=true|false] [--playouts=N]"
+                           + " [--tree=MB]");
         System.exit(1);
     }
 
@@ -86,6 +94,14 @@ public class Main {
         }
     }
 
+    /** Report search statistics formed from FORMAT and ARGS as for
+     *  String.format, if timing. */
+    static void reportStats(String format, Object... args) {
+        if (_timing) {
+            System.err.printf(format + "%n", args);
+        }
+    }
+
     /** Report total time statistics, if timing. */
     static void reportTotalTimes() {
         if (_timing && _numTimedOps > 0) {
@@ -17,13 +17,21 @@ class Manual extends Player {
 
     @Override
     Move myMove() {
-        Move mov;
-        Command cmd = this.game().getMoveCmnd(_prompt);
-        if (cmd == null) {
-            return null;
+        while (true) {
+            Command cmd = this.game().getMoveCmnd(_prompt);
+            if (cmd == null) {
+                return null;
+            }
+            try {
+                Move mov = Move.parseMove(cmd.operands()[0]);
+                if (board().legalMove(mov)) {
+                    return mov;
+                }
+            } catch (IllegalArgumentException excp) {
+                /* Fall through to report the error. */
+            }
+            game().reportError("that move is illegal.");
         }
-        mov = Move.parseMove(cmd.operands()[0]);
-        return mov;
     }
 
     /** Identifies the player serving as a source of input commands. */
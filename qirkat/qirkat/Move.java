@@ -2,8 +2,9 @@ package qirkat;
 
 import static java.lang.Math.abs;
 import java.util.Formatter;
-import java.util.HashMap;
-import java.util.function.Function;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 
@@ -39,22 +40,30 @@ class Move {
      * one. Moves themselves are immutable, and for any possible move,
      * there is exactly one object of type Move. */
 
-    /* To avoid creating Move objects that are not needed, we maintain a
-     * a static variable, _staged containing a Move object.  The move
-     * factory methods then sets the fields of this object before looking to
-     * to see if there is already a Move object with the same parameters.
-     * If there is, the move methods will simply return it, thus allowing
-     * _staged to be reused on the next call without having to create a
-     * new Move object.  Otherwise, we use the _staged object itself as the
-     * new Move, and set the variable to null so that we create a new
-     * Move on the next call to move. There is a drawback: since there
-     * is at most one _staged object at any time, at most one call to move
-     * may execute simultaneously.  Otherwise, two the methods may attempt
-     * to use the same Move object for two different Moves, which clearly
-     * will not work.  Therefore, we indicate in the comments that a number
-     * of the operations are not "thread safe". Fortunately, you'll not run
-     * into this problem as long as you don't do anything fancy (such as
-     * trying to make your AI a parallel program).
+    /* The factory must be usable by several threads at once (the AI may
+     * search in parallel) without a global lock.  All single moves and
+     * jumps, including vestigial moves, are therefore created when the
+     * class is loaded and kept in the table _singles, indexed by source
+     * and destination square, which is never modified afterwards.  A
+     * multi-jump is a single jump followed by another (shorter) jump
+     * whose source is the first jump's destination, so it is determined
+     * by its tail and its source square.  Each Move that is the tail of
+     * some multi-jump has a table of these extensions, indexed by source
+     * square.  The table is installed with a compare-and-set operation
+     * on first use.  An extension is created on first use by a thread
+     * holding the table's lock, which checks again that no other thread
+     * has just created it; threads that find it installed use it without
+     * locking.  Thus, there is still exactly one Move object for each
+     * move, so that pointer equality may be used to compare them.
+     *
+     * Each Move also has a distinct int code, so that lists of moves may
+     * be kept in int arrays (see MoveList).  The code of the single move
+     * or jump from F to T is F * 25 + T.  Multi-jumps are numbered in
+     * order of creation from there on, and recorded in the registry
+     * _multiJumps, which is divided into blocks that are also created on
+     * demand.  A new multi-jump is registered before it is installed as
+     * an extension, so that any code a thread can obtain may be decoded,
+     * and only the multi-jump that is installed is registered.
      */
 
     /** The move constructor, made private to prevent its use except in
@@ -65,27 +74,152 @@ class Move {
     /** A factory method that returns a Move from COL0 ROW0 to COL1 ROW1,
      *  followed by NEXTJUMP, if this move is a jump. Assumes the column
      *  and row designations are valid and that NEXTJUMP is null for a
-     *  non-capturing move.  Not thread-safe. */
+     *  non-capturing move. */
     static Move move(char col0, char row0, char col1, char row1,
                      Move nextJump) {
-        if (_staged == null) {
-            _staged = new Move();
+        Move first = _singles[index(col0, row0)][index(col1, row1)];
+        if (nextJump == null) {
+            return first;
         }
-        _staged.set(col0, row0, col1, row1, nextJump);
-        if (_staged.isJump() && nextJump != null && !nextJump.isJump()) {
-            throw new IllegalArgumentException("bad jump");
-        } else if (!_staged.isJump() && nextJump != null) {
+        if (!first.isJump() || !nextJump.isJump()
+            || nextJump.fromIndex() != first.toIndex()) {
             throw new IllegalArgumentException("bad jump");
         }
-        Move result = _internedMoves.computeIfAbsent(_staged, IDENTITY);
-        if (result == _staged) {
-            _staged = null;
+        return nextJump.extension(first.fromIndex());
+    }
+
+    /** Return the code of the single move or jump from linearized index
+     *  FROM to TO. */
+    static int code(int from, int to) {
+        return from * (MAX_INDEX + 1) + to;
+    }
+
+    /** Return the Move whose code is CODE. */
+    static Move decode(int code) {
+        if (code < SINGLE_CODES) {
+            return _singles[code / (MAX_INDEX + 1)][code % (MAX_INDEX + 1)];
         }
-        return result;
+        code -= SINGLE_CODES;
+        return _multiJumps.get(code / REGISTRY_BLOCK)
+            .get(code % REGISTRY_BLOCK);
+    }
+
+    /** Return the code of the jump from linearized index FROM to the
+     *  source of the jump whose code is TAIL, followed by that jump. */
+    static int extend(int from, int tail) {
+        return decode(tail).extension(from)._code;
+    }
+
+    /* A move along the lines of the board also has a "packed" form: a
+     * long that denotes it without reference to any Move object, so that
+     * it may be stored in 8 bytes and decoded without following a chain
+     * of jumps.  Bits 0-4 hold the linearized index of its source square
+     * and bit 5 is on iff it is a non-capturing move.  Each following
+     * group of 4 bits holds the direction of one step or jump, in order,
+     * as 1 + its index in Bitboard.DIRECTIONS, and the first 0 group ends
+     * the move.  There is room for 14 jumps, which is more than the
+     * number of opposing pieces that one piece can ever reach.  Vestigial
+     * moves and moves that do not follow the lines of the board have no
+     * packed form. */
+
+    /** A packed value that denotes no move. */
+    static final long NO_MOVE = 0;
+
+    /** Return the packed form of MOVE, or NO_MOVE if MOVE is null or has
+     *  no packed form. */
+    static long pack(Move move) {
+        return move == null ? NO_MOVE : move._packed;
+    }
+
+    /** Return the Move whose packed form is PACKED, or null if PACKED is
+     *  NO_MOVE. */
+    static Move unpack(long packed) {
+        if (packed == NO_MOVE) {
+            return null;
+        }
+        int from = (int) packed & PACKED_SQUARE_MASK;
+        long legs = packed >>> PACKED_LEGS;
+        if ((packed & PACKED_STEP) == 0) {
+            return unpackJumps(from, legs);
+        }
+        int d = leg(legs, Bitboard.STEP_FROM, from);
+        if ((legs >>> LEG_BITS) != 0) {
+            throw new IllegalArgumentException("bad packed move");
+        }
+        return _singles[from][from + Bitboard.DIRECTIONS[d]];
+    }
+
+    /** Return the Move denoted by STR, as for parseMove, in packed
+     *  form. */
+    static long parsePacked(String str) {
+        Move result = parseMove(str);
+        if (result._packed == NO_MOVE) {
+            throw new IllegalArgumentException("bad move denotation");
+        }
+        return result._packed;
     }
 
-    /** Return a single move or jump from (COL0, ROW0) to (COL1, ROW1).
-     *  Not thread-safe. */
+    /** Return the denotation of the move whose packed form is PACKED, as
+     *  for toString(). */
+    static String toString(long packed) {
+        if (packed == NO_MOVE) {
+            throw new IllegalArgumentException("no move");
+        }
+        StringBuilder out = new StringBuilder();
+        int k = (int) packed & PACKED_SQUARE_MASK;
+        int scale = (packed & PACKED_STEP) != 0 ? 1 : 2;
+        out.append(col(k)).append(row(k));
+        for (long legs = packed >>> PACKED_LEGS; legs != 0;
+             legs >>>= LEG_BITS) {
+            k += scale * Bitboard.DIRECTIONS[(int) (legs & LEG_MASK) - 1];
+            out.append('-').append(col(k)).append(row(k));
+        }
+        return out.toString();
+    }
+
+    /** Return the index in Bitboard.DIRECTIONS of the first leg of the
+     *  packed LEGS, which starts at linearized index FROM, checking that
+     *  FROM is in the mask VALID[D] for that index D. */
+    private static int leg(long legs, int[] valid, int from) {
+        int d = (int) (legs & LEG_MASK) - 1;
+        if (d < 0 || d >= Bitboard.DIRECTIONS.length
+            || !Bitboard.contains(valid[d], from)) {
+            throw new IllegalArgumentException("bad packed move");
+        }
+        return d;
+    }
+
+    /** Return the jump from linearized index FROM whose packed sequence
+     *  of jump directions is LEGS. */
+    private static Move unpackJumps(int from, long legs) {
+        int to =
+            from + 2 * Bitboard.DIRECTIONS[leg(legs, Bitboard.JUMP_FROM,
+                                                from)];
+        legs >>>= LEG_BITS;
+        if (legs == 0) {
+            return _singles[from][to];
+        }
+        return unpackJumps(to, legs).extension(from);
+    }
+
+    /** Return the packed form of the single move or jump from linearized
+     *  index FROM to TO, or NO_MOVE if there is none. */
+    private static long packSingle(int from, int to) {
+        for (int d = 0; d < Bitboard.DIRECTIONS.length; d += 1) {
+            int off = Bitboard.DIRECTIONS[d];
+            long leg = (long) (d + 1) << PACKED_LEGS;
+            if (to - from == off && Bitboard.contains(Bitboard.STEP_FROM[d],
+                                                      from)) {
+                return from | PACKED_STEP | leg;
+            } else if (to - from == 2 * off
+                       && Bitboard.contains(Bitboard.JUMP_FROM[d], from)) {
+                return from | leg;
+            }
+        }
+        return NO_MOVE;
+    }
+
+    /** Return a single move or jump from (COL0, ROW0) to (COL1, ROW1). */
     static Move move(char col0, char row0, char col1, char row1) {
         return move(col0, row0, col1, row1, null);
     }
@@ -150,6 +284,11 @@ class Move {
         return _isJump;
     }
 
+    /** Return the number of pieces I capture (0 unless I am a jump). */
+    int jumps() {
+        return _jumps;
+    }
+
     /** Return true iff this is a vestigial Move consisting only of a single
      *  position. */
     boolean isVestigial() {
@@ -227,6 +366,16 @@ class Move {
         return _nextJump;
     }
 
+    /** Return my packed form, or NO_MOVE if I have none. */
+    long pack() {
+        return _packed;
+    }
+
+    /** Return my code, which is unique to me. */
+    int code() {
+        return _code;
+    }
+
     @Override
     public int hashCode() {
         return (_fromIndex << 5) | _toIndex;
@@ -270,6 +419,9 @@ class Move {
 
     @Override
     public String toString() {
+        if (_packed != NO_MOVE) {
+            return toString(_packed);
+        }
         Formatter out = new Formatter();
         toString(out);
         return out.toString();
@@ -288,6 +440,51 @@ class Move {
         }
     }
 
+    /** Return the multi-jump consisting of a jump from FROM to my source
+     *  square followed by me, creating it if necessary. */
+    private Move extension(int from) {
+        AtomicReferenceArray<Move> extensions = _extensions;
+        if (extensions == null) {
+            extensions = new AtomicReferenceArray<>(SIDE * SIDE);
+            if (!EXTENSIONS.compareAndSet(this, null, extensions)) {
+                extensions = _extensions;
+            }
+        }
+        Move result = extensions.get(from);
+        if (result == null) {
+            synchronized (extensions) {
+                result = extensions.get(from);
+                if (result == null) {
+                    result = new Move();
+                    result.set(col(from), row(from), col0(), row0(), this);
+                    register(result);
+                    extensions.set(from, result);
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Assign the next available code to the multi-jump JUMP, and record
+     *  it in _multiJumps. */
+    private static void register(Move jump) {
+        int code = _nextCode.getAndIncrement();
+        jump._code = code;
+        code -= SINGLE_CODES;
+        if (code >= REGISTRY_BLOCK * REGISTRY_BLOCKS) {
+            throw new IllegalStateException("too many distinct moves");
+        }
+        int b = code / REGISTRY_BLOCK;
+        AtomicReferenceArray<Move> block = _multiJumps.get(b);
+        if (block == null) {
+            _multiJumps.compareAndSet(b, null,
+                                      new AtomicReferenceArray<>(
+                                          REGISTRY_BLOCK));
+            block = _multiJumps.get(b);
+        }
+        block.set(code % REGISTRY_BLOCK, jump);
+    }
+
     /** Set me to COL0 ROW0 - COL1 ROW1 - NEXTJUMP. */
     private void set(char col0, char row0, char col1, char row1,
                      Move nextJump) {
@@ -300,7 +497,24 @@ class Move {
         _fromIndex = (byte) index(col0, row0);
         _toIndex = (byte) index(col1, row1);
         _isJump = abs(col0 - col1) > 1 || abs(row0 - row1) > 1;
+        if (!_isJump) {
+            _jumps = 0;
+        } else if (nextJump == null) {
+            _jumps = 1;
+        } else {
+            _jumps = 1 + nextJump._jumps;
+        }
         _nextJump = nextJump;
+        _packed = packSingle(_fromIndex, _toIndex);
+        if (nextJump != null) {
+            long tail = nextJump._packed >>> PACKED_LEGS;
+            if (_packed == NO_MOVE || tail == 0
+                || (tail >>> (Long.SIZE - PACKED_LEGS - LEG_BITS)) != 0) {
+                _packed = NO_MOVE;
+            } else {
+                _packed |= tail << (PACKED_LEGS + LEG_BITS);
+            }
+        }
         assert (_isJump
                 && (nextJump == null
                     || (nextJump.isJump()
@@ -315,6 +529,9 @@ class Move {
     /** True iff move is a jump. */
     private boolean _isJump;
 
+    /** Number of pieces captured. */
+    private int _jumps;
+
     /** From and to squares, or 0s if a pass. */
     private char _col0, _row0, _col1, _row1;
 
@@ -322,17 +539,71 @@ class Move {
      *  initial jump. */
     private Move _nextJump;
 
-    /* Used for the Move factory. */
+    /** My code (see code()). */
+    private int _code;
+
+    /** My packed form (see pack()). */
+    private long _packed;
+
+    /** Layout of packed moves: the mask of the source square, the bit
+     *  marking non-capturing moves, the position of the first leg, and
+     *  the size and mask of each leg. */
+    private static final int
+        PACKED_SQUARE_MASK = 0x1f,
+        PACKED_LEGS = 6,
+        LEG_BITS = 4,
+        LEG_MASK = 0xf;
 
-    /** Holds the next Move object to be added to _internedMoves.
-     *  The factory method move tentatively fills it in, and then returns
-     *  it if it is unique (resetting _staged to null). */
-    private static Move _staged;
+    /** Bit set in the packed form of a non-capturing move. */
+    private static final long PACKED_STEP = 1 << 5;
 
-    /** The set of all distinct moves generated so far. */
-    private static HashMap<Move, Move> _internedMoves = new HashMap<>();
+    /* Used for the Move factory. */
 
-    /** The identity function on Moves. */
-    static final Function<Move, Move> IDENTITY = k -> k;
+    /** The multi-jumps having me as their tail, indexed by source square,
+     *  or null if none have been created yet. */
+    private volatile AtomicReferenceArray<Move> _extensions;
+
+    /** Atomically installs the value of _extensions.  The class literal
+     *  it is made from can only have the raw type. */
+    @SuppressWarnings("rawtypes")
+    private static final
+        AtomicReferenceFieldUpdater<Move, AtomicReferenceArray> EXTENSIONS =
+        AtomicReferenceFieldUpdater.newUpdater(Move.class,
+                                               AtomicReferenceArray.class,
+                                               "_extensions");
+
+    /** Number of codes denoting single moves and jumps. */
+    private static final int SINGLE_CODES = (MAX_INDEX + 1) * (MAX_INDEX + 1);
+
+    /** Number of multi-jumps in each block of _multiJumps. */
+    private static final int REGISTRY_BLOCK = 1 << 12;
+
+    /** Maximum number of blocks in _multiJumps. */
+    private static final int REGISTRY_BLOCKS = 1 << 12;
+
+    /** The multi-jump with code SINGLE_CODES + K is entry
+     *  K % REGISTRY_BLOCK of block K / REGISTRY_BLOCK. */
+    private static final AtomicReferenceArray<AtomicReferenceArray<Move>>
+        _multiJumps = new AtomicReferenceArray<>(REGISTRY_BLOCKS);
+
+    /** The code of the next multi-jump to be created. */
+    private static final AtomicInteger _nextCode =
+        new AtomicInteger(SINGLE_CODES);
+
+    /** _singles[F][T] is the single move or jump from linearized index F
+     *  to T (vestigial if F == T). */
+    private static final Move[][] _singles = new Move[SIDE * SIDE][];
+
+    static {
+        for (int from = 0; from <= MAX_INDEX; from += 1) {
+            _singles[from] = new Move[SIDE * SIDE];
+            for (int to = 0; to <= MAX_INDEX; to += 1) {
+                Move mov = new Move();
+                mov.set(col(from), row(from), col(to), row(to), null);
+                mov._code = code(from, to);
+                _singles[from][to] = mov;
+            }
+        }
+    }
 
 }
@@ -0,0 +1,87 @@
+package qirkat;
+
+import java.util.Arrays;
+
+/** A reusable list of moves, each denoted by its code (see Move.code()).
+ *  A MoveList grows as needed but never shrinks, so that once it has
+ *  held the moves of a position, refilling it does not allocate.  Each
+ *  move may be given a score, by which the list may be sorted.
+ *  @author Noah Alcus
+ */
+class MoveList {
+
+    /** An empty list. */
+    MoveList() {
+        _codes = new int[INITIAL_SIZE];
+        _scores = new int[INITIAL_SIZE];
+    }
+
+    /** Return the number of moves in me. */
+    int size() {
+        return _size;
+    }
+
+    /** Return the code of my Kth move. */
+    int get(int k) {
+        return _codes[k];
+    }
+
+    /** Return my Kth move. */
+    Move move(int k) {
+        return Move.decode(_codes[k]);
+    }
+
+    /** Replace my Kth move with the move whose code is CODE. */
+    void set(int k, int code) {
+        _codes[k] = code;
+    }
+
+    /** Set the score of my Kth move to SCORE. */
+    void setScore(int k, int score) {
+        _scores[k] = score;
+    }
+
+    /** Sort my moves in decreasing order of score, keeping moves with
+     *  equal scores in their current order. */
+    void sort() {
+        for (int i = 1; i < _size; i += 1) {
+            int code = _codes[i], score = _scores[i];
+            int j;
+            for (j = i; j > 0 && _scores[j - 1] < score; j -= 1) {
+                _codes[j] = _codes[j - 1];
+                _scores[j] = _scores[j - 1];
+            }
+            _codes[j] = code;
+            _scores[j] = score;
+        }
+    }
+
+    /** Add the move whose code is CODE at my end, with score 0. */
+    void add(int code) {
+        if (_size == _codes.length) {
+            _codes = Arrays.copyOf(_codes, 2 * _size);
+            _scores = Arrays.copyOf(_scores, 2 * _size);
+        }
+        _scores[_size] = 0;
+        _codes[_size] = code;
+        _size += 1;
+    }
+
+    /** Remove all my moves. */
+    void clear() {
+        _size = 0;
+    }
+
+    /** Initial capacity of a list. */
+    private static final int INITIAL_SIZE = 32;
+
+    /** The codes of my moves, in positions 0 .. _size - 1. */
+    private int[] _codes;
+
+    /** The scores of my moves. */
+    private int[] _scores;
+
+    /** Number of moves in me. */
+    private int _size;
+
+}
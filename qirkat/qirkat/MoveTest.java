@@ -41,4 +41,21 @@ public class MoveTest {
         assertEquals("a3-a5-c3", parseMove("a3-a5-c3").toString());
         assertEquals("a3-a5-c3-e1", parseMove("a3-a5-c3-e1").toString());
     }
+
+    @Test
+    public void testPacked() {
+        String[] moves = { "a3-b2", "c3-c4", "e2-d2", "a3-a5",
+                           "a3-a5-c3-e1", "a1-a3-c3-e3-c5-a3" };
+        for (String str : moves) {
+            Move m = parseMove(str);
+            long packed = m.pack();
+            assertNotEquals(NO_MOVE, packed);
+            assertSame(m, unpack(packed));
+            assertEquals(str, Move.toString(packed));
+            assertEquals(packed, parsePacked(str));
+        }
+        assertEquals(NO_MOVE, move('c', '3').pack());
+        assertEquals(NO_MOVE, move('a', '1', 'b', '3').pack());
+        assertNull(unpack(NO_MOVE));
+    }
 }
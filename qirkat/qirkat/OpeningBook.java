@@ -0,0 +1,193 @@
+package qirkat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+
+/** A table of the best moves in positions near the start of the game,
+ *  as computed by an OpeningBookBuilder and kept in a file that is
+ *  mapped into memory.
+ *
+ *  The file holds a header (MAGIC and the number of entries) followed by
+ *  the entries in increasing order of their keys (see Position.key).
+ *  Each entry is ENTRY_SIZE bytes: the key, the best move in packed form
+ *  (see Move.pack), and its value for the player to move, as found by a
+ *  deep search.  Positions are found by binary search on their keys.
+ *  A book may be shared by any number of threads.
+ *  @author Noah Alcus
+ */
+class OpeningBook {
+
+    /** Value returned by find for a position not in the book. */
+    static final int NOT_FOUND = -1;
+
+    /** Return the book in FILE, which is shared with other callers asking
+     *  for the same FILE, or null if there is no such file or it is not a
+     *  valid book.  The file is read again if it has changed since it was
+     *  last read. */
+    static synchronized OpeningBook open(File file) {
+        String path = path(file);
+        OpeningBook result = _opened.get(path);
+        if (result == null || result._modified != file.lastModified()
+            || result._length != file.length()) {
+            result = read(file);
+            if (result == null) {
+                _opened.remove(path);
+            } else {
+                _opened.put(path, result);
+            }
+        }
+        return result;
+    }
+
+    /** Write a book to FILE whose Ith entry has key KEYS[I], packed move
+     *  MOVES[I], and value VALUES[I].  KEYS must be in increasing
+     *  order.  The book is written to a temporary file that then replaces
+     *  FILE, so that books already opened from FILE are unchanged. */
+    static void write(File file, long[] keys, long[] moves, int[] values)
+        throws IOException {
+        ByteBuffer buffer =
+            ByteBuffer.allocate(HEADER_SIZE + keys.length * ENTRY_SIZE);
+        buffer.putInt(MAGIC).putInt(keys.length);
+        for (int i = 0; i < keys.length; i += 1) {
+            if (i > 0 && keys[i - 1] >= keys[i]) {
+                throw new IllegalArgumentException("keys out of order");
+            }
+            buffer.putLong(keys[i]).putLong(moves[i]).putInt(values[i]);
+        }
+        buffer.flip();
+        Path temp =
+            Files.createTempFile(file.getAbsoluteFile().getParentFile()
+                                 .toPath(), file.getName(), ".tmp");
+        try {
+            try (FileChannel out =
+                 FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+            }
+            Files.move(temp, file.toPath(),
+                       StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        synchronized (OpeningBook.class) {
+            _opened.remove(path(file));
+        }
+    }
+
+    /** Return the canonical name of FILE, if it has one, and otherwise
+     *  its absolute name. */
+    private static String path(File file) {
+        try {
+            return file.getCanonicalPath();
+        } catch (IOException excp) {
+            return file.getAbsolutePath();
+        }
+    }
+
+    /** Return the book in FILE, or null if there is none, or it is not a
+     *  valid book. */
+    private static OpeningBook read(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        long modified = file.lastModified(), length = file.length();
+        try (FileChannel in = FileChannel.open(file.toPath(),
+                                               StandardOpenOption.READ)) {
+            if (in.size() < HEADER_SIZE) {
+                return null;
+            }
+            ByteBuffer buffer =
+                in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            int size = buffer.getInt(4);
+            if (buffer.getInt(0) != MAGIC || size < 0
+                || in.size() != HEADER_SIZE + (long) size * ENTRY_SIZE) {
+                return null;
+            }
+            return new OpeningBook(size, buffer, modified, length);
+        } catch (IOException excp) {
+            return null;
+        }
+    }
+
+    /** A book with SIZE entries, which are in BUFFER after the header,
+     *  read from a file last modified at time MODIFIED and LENGTH bytes
+     *  long. */
+    private OpeningBook(int size, ByteBuffer buffer, long modified,
+                        long length) {
+        _size = size;
+        _buffer = buffer;
+        _modified = modified;
+        _length = length;
+    }
+
+    /** Return the number of my entries. */
+    int size() {
+        return _size;
+    }
+
+    /** Return the index of my entry for the position whose key is KEY, or
+     *  NOT_FOUND if there is none. */
+    int find(long key) {
+        int lo, hi;
+        lo = 0;
+        hi = _size - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long midKey = key(mid);
+            if (midKey < key) {
+                lo = mid + 1;
+            } else if (midKey > key) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /** Return the key of my entry #I. */
+    long key(int i) {
+        return _buffer.getLong(HEADER_SIZE + i * ENTRY_SIZE);
+    }
+
+    /** Return the best move, in packed form, recorded in my entry #I. */
+    long move(int i) {
+        return _buffer.getLong(HEADER_SIZE + i * ENTRY_SIZE + 8);
+    }
+
+    /** Return the value for the player to move recorded in my entry
+     *  #I. */
+    int value(int i) {
+        return _buffer.getInt(HEADER_SIZE + i * ENTRY_SIZE + 16);
+    }
+
+    /** Books already opened, by canonical file name. */
+    private static HashMap<String, OpeningBook> _opened = new HashMap<>();
+
+    /** Identifies a book file ("QOB1"). */
+    private static final int MAGIC = 0x514f4231;
+
+    /** Size of a book file's header: MAGIC and the number of entries. */
+    private static final int HEADER_SIZE = 8;
+
+    /** Size of an entry: key, packed move, and value. */
+    private static final int ENTRY_SIZE = 20;
+
+    /** Number of my entries. */
+    private final int _size;
+
+    /** My file's contents. */
+    private final ByteBuffer _buffer;
+
+    /** The modification time and length of my file when it was read. */
+    private final long _modified, _length;
+
+}
@@ -0,0 +1,186 @@
+package qirkat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/** Builds an OpeningBook by searching every position that can arise in
+ *  the first few moves of a game.
+ *
+ *  The positions are found by playing out all lines of play of a given
+ *  length from the initial position, keeping one line to each distinct
+ *  position.  Positions with fewer than two legal moves are left out,
+ *  since an AI does not search them.  Each remaining position is then
+ *  searched to a fixed depth by its own single-threaded AI, with the
+ *  positions divided among several threads.  The result depends only on
+ *  the length of the lines, the depth, and the transposition table size,
+ *  and not on the number of threads.
+ *  @author Noah Alcus
+ */
+class OpeningBookBuilder {
+
+    /** Build a book as directed by ARGS, which are
+     *      [ --NAME=VALUE ... ] PLIES DEPTH FILE
+     *  writing to FILE the moves found by searching to DEPTH every
+     *  position reached by PLIES or fewer moves.  The options are as for
+     *  Main (see SearchOptions), except that --threads gives the number
+     *  of positions searched at once, and the time limit, any book, and
+     *  pondering are ignored. */
+    public static void main(String[] args) {
+        SearchOptions options = new SearchOptions();
+        options.setThreads(Runtime.getRuntime().availableProcessors());
+        int k;
+        for (k = 0; k < args.length && args[k].startsWith("--"); k += 1) {
+            if (!options.parse(args[k])) {
+                usage();
+            }
+        }
+        if (args.length != k + 3 || !args[k].matches("\\d+")
+            || !args[k + 1].matches("\\d+")) {
+            usage();
+        }
+        int plies = Integer.parseInt(args[k]),
+            depth = Integer.parseInt(args[k + 1]);
+        if (depth < 1) {
+            usage();
+        }
+        try {
+            new OpeningBookBuilder(options).build(plies, depth,
+                                                  new File(args[k + 2]),
+                                                  new TextReporter());
+        } catch (IOException excp) {
+            System.err.printf("Could not write book: %s%n",
+                              excp.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** Give usage message and exit. */
+    private static void usage() {
+        System.err.println("Usage: java qirkat.OpeningBookBuilder"
+                           + " [--threads=N] [--hash=MB]"
+                           + " [--tablebases=DIR] PLIES DEPTH FILE");
+        System.exit(1);
+    }
+
+    /** A builder whose searches use OPTIONS, and which searches
+     *  OPTIONS.threads() positions at once. */
+    OpeningBookBuilder(SearchOptions options) {
+        _options = new SearchOptions(options);
+        _options.setTimeBudget(0);
+        _options.setThreads(1);
+        _options.setBook(null);
+        _options.setPonder(false);
+        _pool = new ForkJoinPool(options.threads());
+    }
+
+    /** Write to FILE a book holding the best moves found by searching to
+     *  DEPTH each position reached by PLIES or fewer moves from the
+     *  initial position, reporting progress to OUT.  Return the book.
+     *  My threads end when the searches are done, so I may build only
+     *  once. */
+    OpeningBook build(int plies, int depth, File file, Reporter out)
+        throws IOException {
+        long time0 = System.currentTimeMillis();
+        LinkedHashMap<Long, Move[]> lines = new LinkedHashMap<>();
+        collect(new Position(), new ArrayList<>(), plies, lines,
+                new HashMap<>());
+        Move[][] positions = lines.values().toArray(new Move[0][]);
+        int n = positions.length;
+        long[] keys = new long[n], moves = new long[n];
+        int[] values = new int[n];
+        ArrayList<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < n; i += 1) {
+            int entry = i;
+            tasks.add(() -> {
+                Board board = new Board();
+                for (Move move : positions[entry]) {
+                    board.makeMove(move);
+                }
+                Game game = new Game(board, null, out, _options);
+                AI ai = new AI(game, board.whoseMove(), depth, _options);
+                keys[entry] = board.key();
+                moves[entry] = Move.pack(ai.myMove());
+                values[entry] = ai.value();
+                ai.stop();
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> result : _pool.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (InterruptedException | ExecutionException excp) {
+            throw new IllegalStateException(excp);
+        } finally {
+            _pool.shutdown();
+        }
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i += 1) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (i, j) -> Long.compare(keys[i], keys[j]));
+        long[] sortedKeys = new long[n], sortedMoves = new long[n];
+        int[] sortedValues = new int[n];
+        for (int i = 0; i < n; i += 1) {
+            sortedKeys[i] = keys[order[i]];
+            sortedMoves[i] = moves[order[i]];
+            sortedValues[i] = values[order[i]];
+        }
+        OpeningBook.write(file, sortedKeys, sortedMoves, sortedValues);
+        out.moveMsg("%d positions within %d moves, searched to depth %d"
+                    + " (%d msec)", n, plies, depth,
+                    System.currentTimeMillis() - time0);
+        OpeningBook result = OpeningBook.open(file);
+        if (result == null) {
+            throw new IOException("cannot read back " + file);
+        }
+        return result;
+    }
+
+    /** Add to LINES, for each position that is reached from POSITION by
+     *  PLIES or fewer further moves, that has at least two legal moves,
+     *  and that is not already in LINES, the moves that lead to it from
+     *  the initial position, of which the first are LINE, keyed by the
+     *  position's key.  EXPLORED maps the key of each position already
+     *  passed to this method to the largest PLIES it was passed with, so
+     *  that positions reached again by other lines of play are not
+     *  explored again.  POSITION and LINE are restored afterwards. */
+    private void collect(Position position, ArrayList<Move> line,
+                         int plies, LinkedHashMap<Long, Move[]> lines,
+                         HashMap<Long, Integer> explored) {
+        Integer previous = explored.get(position.key());
+        if (previous != null && previous >= plies) {
+            return;
+        }
+        explored.put(position.key(), plies);
+        ArrayList<Move> moves = position.getMoves();
+        if (moves.size() >= 2 && !lines.containsKey(position.key())) {
+            lines.put(position.key(), line.toArray(new Move[0]));
+        }
+        if (plies == 0) {
+            return;
+        }
+        for (Move move : moves) {
+            position.makeMove(move);
+            line.add(move);
+            collect(position, line, plies - 1, lines, explored);
+            line.remove(line.size() - 1);
+            position.undo();
+        }
+    }
+
+    /** Options for the searches of positions. */
+    private final SearchOptions _options;
+
+    /** Threads searching positions. */
+    private final ForkJoinPool _pool;
+
+}
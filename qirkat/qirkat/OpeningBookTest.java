@@ -0,0 +1,103 @@
+package qirkat;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/** Tests of opening books.
+ *  @author Noah Alcus
+ */
+public class OpeningBookTest {
+
+    /** Return a new temporary file for a book. */
+    private static File tempFile() throws IOException {
+        File file = File.createTempFile("qirkat-book", ".qob");
+        file.deleteOnExit();
+        return file;
+    }
+
+    @Test
+    public void testFind() throws IOException {
+        File file = tempFile();
+        long[] keys = { -5, 3, 17, 1L << 40 };
+        long[] moves = { Move.parsePacked("c2-c3"),
+                         Move.parsePacked("b2-c3"),
+                         Move.parsePacked("c4-c2-e2"),
+                         Move.parsePacked("d2-c3") };
+        int[] values = { 1, -2, 3, -4 };
+        OpeningBook.write(file, keys, moves, values);
+        OpeningBook book = OpeningBook.open(file);
+        assertEquals(4, book.size());
+        for (int i = 0; i < keys.length; i += 1) {
+            int entry = book.find(keys[i]);
+            assertEquals(i, entry);
+            assertEquals(moves[i], book.move(entry));
+            assertEquals(values[i], book.value(entry));
+        }
+        assertEquals(OpeningBook.NOT_FOUND, book.find(0));
+        assertEquals(OpeningBook.NOT_FOUND, book.find(-6));
+        assertEquals(OpeningBook.NOT_FOUND, book.find(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testRewrite() throws IOException {
+        File file = tempFile();
+        long[] moves = { Move.parsePacked("c2-c3"),
+                         Move.parsePacked("b2-c3") };
+        OpeningBook.write(file, new long[] { 1 }, moves, new int[] { 5 });
+        OpeningBook book = OpeningBook.open(file);
+        assertSame(book, OpeningBook.open(file));
+        OpeningBook.write(file, new long[] { 2, 3 }, moves,
+                          new int[] { 6, 7 });
+        OpeningBook rewritten = OpeningBook.open(file);
+        assertEquals(2, rewritten.size());
+        assertEquals(0, rewritten.find(2));
+        assertEquals(1, book.size());
+        assertEquals(5, book.value(book.find(1)));
+
+        SearchOptions options = new SearchOptions();
+        assertTrue(options.parse("--book=" + file));
+        assertEquals(file, options.book());
+        assertFalse(options.parse("--book=" + file + ".none"));
+        assertFalse(options.parse("--book=" + file.getParent()));
+    }
+
+    @Test
+    public void testBuild() throws IOException {
+        File file = tempFile();
+        SearchOptions options = new SearchOptions();
+        options.setHashMegabytes(1);
+        options.setThreads(2);
+        OpeningBook book =
+            new OpeningBookBuilder(options).build(PLIES, DEPTH, file,
+                                                  new TextReporter());
+        assertTrue(book.size() > 0);
+        for (int i = 1; i < book.size(); i += 1) {
+            assertTrue(book.key(i - 1) < book.key(i));
+        }
+
+        Board board = new Board();
+        int entry = book.find(board.key());
+        assertNotEquals(OpeningBook.NOT_FOUND, entry);
+        Move move = Move.unpack(book.move(entry));
+        assertTrue(board.legalMove(move));
+
+        options.setBook(file);
+        options.setThreads(1);
+        Game game = new Game(board, null, new TextReporter(), options);
+        AI ai = new AI(game, PieceColor.WHITE, DEPTH, options);
+        assertEquals(move, ai.myMove());
+        assertEquals(0, ai.nodes());
+        assertEquals(book.value(entry), ai.value());
+    }
+
+    /** Length of the lines of play covered by the book built. */
+    private static final int PLIES = 3;
+
+    /** Depth of the searches of the book built. */
+    private static final int DEPTH = 4;
+
+}
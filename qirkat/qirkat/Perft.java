@@ -0,0 +1,315 @@
+package qirkat;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/** Counts the positions reachable from a given one by a fixed number of
+ *  moves ("perft").  Comparing the counts with known values checks the
+ *  move generator exhaustively, and the time taken measures its speed.
+ *  The subtrees of the moves from the starting position may be counted
+ *  in parallel, and counts of subtrees already seen may be remembered in
+ *  a hash table shared by all threads.
+ *  @author Noah Alcus
+ */
+class Perft {
+
+    /** Count positions as directed by ARGS, which are
+     *      [ --threads=N ] [ --hash=MB ] [ --divide ] DEPTH [ COLOR PIECES ]
+     *  where COLOR PIECES describe the starting position as for the 'set'
+     *  command (the initial position by default), --hash enables a table
+     *  of MB megabytes for remembering counts, and --divide reports the
+     *  count for each move from the starting position. */
+    public static void main(String[] args) {
+        int threads = 1, hash = 0, depth = -1;
+        boolean divide = false;
+        Position start = new Position();
+        try {
+            for (int i = 0; i < args.length; i += 1) {
+                Matcher mat = OPTION.matcher(args[i]);
+                if (args[i].equals("--divide")) {
+                    divide = true;
+                } else if (mat.matches() && mat.group(1).equals("threads")) {
+                    threads = Integer.parseInt(mat.group(2));
+                } else if (mat.matches() && mat.group(1).equals("hash")) {
+                    hash = Integer.parseInt(mat.group(2));
+                } else if (depth < 0 && args[i].matches("\\d+")) {
+                    depth = Integer.parseInt(args[i]);
+                } else if (i == args.length - 2) {
+                    start.setPieces(args[i + 1],
+                                    PieceColor.valueOf(args[i]
+                                                       .toUpperCase()));
+                    break;
+                } else {
+                    usage();
+                }
+            }
+        } catch (IllegalArgumentException excp) {
+            usage();
+        }
+        if (depth < 0 || threads < 1) {
+            usage();
+        }
+        Perft perft = new Perft(threads, hash);
+        perft.report(start, depth, divide, new TextReporter());
+        perft.shutdown();
+    }
+
+    /** Give usage message and exit. */
+    private static void usage() {
+        System.err.println("Usage: java qirkat.Perft [--threads=N]"
+                           + " [--hash=MB] [--divide] DEPTH"
+                           + " [white|black PIECES]");
+        System.exit(1);
+    }
+
+    /** A counter that uses THREADS threads and, if HASHMEGABYTES is
+     *  positive, a table of about that many megabytes. */
+    Perft(int threads, int hashMegabytes) {
+        if (threads > 1) {
+            _pool = new ForkJoinPool(threads);
+        }
+        if (hashMegabytes > 0) {
+            int entries = 1;
+            while (2L * entries * ENTRY_BYTES <= (long) hashMegabytes << 20
+                   && entries < MAX_ENTRIES) {
+                entries *= 2;
+            }
+            _mask = entries - 1;
+            _keys = new long[entries];
+            _counts = new long[entries];
+        }
+    }
+
+    /** Count the positions DEPTH moves from START, and report the count,
+     *  the time taken, and the number of positions counted per second
+     *  to OUT.  If DIVIDE, first report the count for each move from
+     *  START. */
+    void report(Position start, int depth, boolean divide, Reporter out) {
+        long time0 = System.nanoTime();
+        ArrayList<Move> moves = new ArrayList<>();
+        long[] counts = divide(start, depth, moves);
+        long total;
+        if (depth == 0) {
+            total = 1;
+        } else {
+            total = 0;
+            for (int i = 0; i < counts.length; i += 1) {
+                total += counts[i];
+                if (divide) {
+                    out.moveMsg("%s: %d", moves.get(i), counts[i]);
+                }
+            }
+        }
+        long micros = Math.max(1, (System.nanoTime() - time0) / 1000);
+        out.moveMsg("Depth %d: %d positions in %d msec (%d per second)",
+                    depth, total, micros / 1000,
+                    total * 1_000_000 / micros);
+    }
+
+    /** End my threads.  I may not count anything afterwards. */
+    void shutdown() {
+        if (_pool != null) {
+            _pool.shutdown();
+        }
+    }
+
+    /** Return the number of positions DEPTH moves from START. */
+    long count(Position start, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        long total;
+        total = 0;
+        for (long n : divide(start, depth, new ArrayList<>())) {
+            total += n;
+        }
+        return total;
+    }
+
+    /** Set MOVES to the legal moves from START and return the numbers of
+     *  positions DEPTH - 1 moves after each of them, in the same order.
+     *  When DEPTH is 0, there are no such positions, and the result is
+     *  empty.  When counting in parallel, the lines of play from START
+     *  are extended a move at a time until there are enough of them to
+     *  keep the threads busy, and each is then counted separately. */
+    long[] divide(Position start, int depth, ArrayList<Move> moves) {
+        moves.clear();
+        if (depth == 0) {
+            return new long[0];
+        }
+        start.getMoves(moves);
+        long[] result = new long[moves.size()];
+        if (_pool == null) {
+            Counter counter = new Counter(start);
+            for (int i = 0; i < result.length; i += 1) {
+                result[i] = counter.count(moves.get(i), depth - 1);
+            }
+            return result;
+        }
+        ArrayList<Position> starts = new ArrayList<>();
+        ArrayList<Integer> roots = new ArrayList<>();
+        for (int i = 0; i < result.length; i += 1) {
+            Position next = new Position(start);
+            next.makeMove(moves.get(i));
+            starts.add(next);
+            roots.add(i);
+        }
+        int remaining = depth - 1;
+        while (remaining > 1
+               && starts.size() < SPLIT_FACTOR * _pool.getParallelism()) {
+            ArrayList<Position> nextStarts = new ArrayList<>();
+            ArrayList<Integer> nextRoots = new ArrayList<>();
+            ArrayList<Move> replies = new ArrayList<>();
+            for (int k = 0; k < starts.size(); k += 1) {
+                starts.get(k).getMoves(replies);
+                for (Move reply : replies) {
+                    Position next = new Position(starts.get(k));
+                    next.makeMove(reply);
+                    nextStarts.add(next);
+                    nextRoots.add(roots.get(k));
+                }
+                replies.clear();
+            }
+            starts = nextStarts;
+            roots = nextRoots;
+            remaining -= 1;
+        }
+        ArrayList<Callable<Long>> tasks = new ArrayList<>();
+        for (Position p : starts) {
+            int d = remaining;
+            tasks.add(() -> new Counter(p).count(d));
+        }
+        try {
+            int k;
+            k = 0;
+            for (Future<Long> count : _pool.invokeAll(tasks)) {
+                result[roots.get(k)] += count.get();
+                k += 1;
+            }
+        } catch (InterruptedException | ExecutionException excp) {
+            throw new IllegalStateException("perft failed", excp);
+        }
+        return result;
+    }
+
+    /** Return the key under which to remember the number of positions
+     *  DEPTH moves from a position whose key is KEY. */
+    private long hashKey(long key, int depth) {
+        return key ^ (depth * DEPTH_MULTIPLIER);
+    }
+
+    /** Return the count recorded under HASHKEY, or -1 if none. */
+    private long probe(long hashKey) {
+        int i = (int) hashKey & _mask;
+        long count = _counts[i];
+        return (_keys[i] ^ count) == hashKey ? count : -1;
+    }
+
+    /** Record COUNT under HASHKEY. */
+    private void store(long hashKey, long count) {
+        int i = (int) hashKey & _mask;
+        _counts[i] = count;
+        _keys[i] = hashKey ^ count;
+    }
+
+    /** The counting done by one thread: its copy of the position and its
+     *  buffers for moves. */
+    private class Counter {
+
+        /** A Counter starting from a copy of START. */
+        Counter(Position start) {
+            _position = new Position(start);
+        }
+
+        /** Return the number of positions DEPTH moves after MOVE from my
+         *  position. */
+        long count(Move move, int depth) {
+            _position.makeMove(move);
+            long result = count(depth, 0);
+            _position.undo();
+            return result;
+        }
+
+        /** Return the number of positions DEPTH moves from my position. */
+        long count(int depth) {
+            return count(depth, 0);
+        }
+
+        /** Return the number of positions DEPTH moves from my position,
+         *  which is PLY moves from the one I started from.  At the last
+         *  move, the moves are counted without being made. */
+        private long count(int depth, int ply) {
+            if (depth == 0) {
+                return 1;
+            } else if (depth == 1) {
+                return _position.countMoves();
+            }
+            long hashKey = 0;
+            if (_keys != null) {
+                hashKey = hashKey(_position.key(), depth);
+                long count = probe(hashKey);
+                if (count >= 0) {
+                    return count;
+                }
+            }
+            while (_moveLists.size() <= ply) {
+                _moveLists.add(new MoveList());
+            }
+            MoveList moves = _moveLists.get(ply);
+            _position.getMoves(moves);
+            long result;
+            result = 0;
+            for (int i = 0; i < moves.size(); i += 1) {
+                _position.makeMove(moves.move(i));
+                result += count(depth - 1, ply + 1);
+                _position.undo();
+            }
+            if (_keys != null) {
+                store(hashKey, result);
+            }
+            return result;
+        }
+
+        /** The position being counted from. */
+        private final Position _position;
+
+        /** _moveLists.get(P) holds the moves at ply P. */
+        private final ArrayList<MoveList> _moveLists = new ArrayList<>();
+    }
+
+    /** Syntax of a command-line option with a value. */
+    private static final Pattern OPTION =
+        Pattern.compile("--(threads|hash)=(\\d+)");
+
+    /** When counting in parallel, the moves from the start are divided
+     *  into at least this many tasks per thread, where possible, so that
+     *  the threads finish at about the same time. */
+    private static final int SPLIT_FACTOR = 8;
+
+    /** Size of one hash-table entry in bytes. */
+    private static final int ENTRY_BYTES = 16;
+
+    /** Maximum number of hash-table entries. */
+    private static final int MAX_ENTRIES = 1 << 30;
+
+    /** Multiplier mixing the depth of a count into its hash key. */
+    private static final long DEPTH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /** Threads for counting moves from the start in parallel, or null if
+     *  counting on the calling thread. */
+    private ForkJoinPool _pool;
+
+    /** Remembered counts, or null if none are remembered.  Each entry's
+     *  key is stored exclusive-or'ed with its count, so that an entry
+     *  written by two threads at once fails to match. */
+    private long[] _keys, _counts;
+
+    /** Mask selecting an index into _keys. */
+    private int _mask;
+
+}
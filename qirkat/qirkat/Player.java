@@ -21,8 +21,8 @@ abstract class Player {
         return _game;
     }
 
-    /** Return a view of the board I am playing on. */
-    Board board() {
+    /** Return a snapshot of the board I am playing on. */
+    BoardSnapshot board() {
         return _game.board();
     }
 
@@ -35,6 +35,11 @@ abstract class Player {
      *  board.whoseMove() == myColor and that !board.gameOver(). */
     abstract Move myMove();
 
+    /** Stop any work I am doing in the background.  I will not be asked
+     *  for any more moves. */
+    void stop() {
+    }
+
     /** The game I am playing in. */
     private final Game _game;
     /** The color of my pieces. */
@@ -0,0 +1,678 @@
+package qirkat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Formatter;
+
+import static qirkat.PieceColor.*;
+import static qirkat.Move.*;
+
+/** A Qirkat position: the pieces on the board, the restrictions on their
+ *  horizontal moves, the player to move, and the moves that led to it.
+ *  A Position is the plain game state behind a Board.  Unlike a Board,
+ *  it has no observers and announces nothing when it changes, and so the
+ *  AI may make and undo moves on a private Position as quickly as the
+ *  state itself allows.
+ *  @author Noah Alcus
+ */
+class Position {
+
+    /** A new position at the start of the game. */
+    Position() {
+        clear();
+    }
+
+    /** A copy of P. */
+    Position(Position p) {
+        copy(p);
+    }
+
+
+    /** Masks (see Bitboard) of the squares holding white and black
+     *  pieces. */
+    private int _white, _black;
+
+    /** Masks of the squares whose pieces may not currently move left
+     *  (respectively right).  Only occupied squares are ever included. */
+    private int _noLeft, _noRight;
+
+    /** Returns if left move is possible for piece at K. */
+    private boolean lPoss(int k) {
+        return !Bitboard.contains(_noLeft, k);
+    }
+
+    /** Sets left move array to reflect a left move MOV. */
+    public void logMoveLeft(Move mov) {
+        assert mov.isLeftMove();
+        update(_white, _black, _noLeft,
+               _noRight | Bitboard.bit(mov.toIndex()));
+    }
+
+    /** Returns if right move is possible for piece at K. */
+    private boolean rPoss(int k) {
+        return !Bitboard.contains(_noRight, k);
+    }
+
+    /** Sets right move array to reflect a right move MOV. */
+    public void logMoveRight(Move mov) {
+        assert mov.isRightMove();
+        update(_white, _black, _noLeft | Bitboard.bit(mov.toIndex()),
+               _noRight);
+    }
+
+    /** Resets the left moves arrays at position k after
+     * a jump/right move MOV. */
+    public void resetLMoves(Move mov) {
+        update(_white, _black, _noLeft & ~Bitboard.bit(mov.toIndex()),
+               _noRight);
+    }
+
+    /** Resets the right moves arrays at position k
+     *  after a jump/left move MOV. */
+    public void resetRMoves(Move mov) {
+        update(_white, _black, _noLeft,
+               _noRight & ~Bitboard.bit(mov.toIndex()));
+    }
+
+    /** Set the piece masks to WHITE and BLACK and the horizontal-move
+     *  masks to NOLEFT and NORIGHT, updating my key and positional value
+     *  to match. */
+    private void update(int white, int black, int noLeft, int noRight) {
+        int[] whiteValues = Evaluation.SQUARES[WHITE.ordinal()],
+            blackValues = Evaluation.SQUARES[BLACK.ordinal()];
+        _positional += Evaluation.squares(whiteValues, white & ~_white)
+            - Evaluation.squares(whiteValues, _white & ~white)
+            - Evaluation.squares(blackValues, black & ~_black)
+            + Evaluation.squares(blackValues, _black & ~black);
+        _key ^= Zobrist.squares(Zobrist.PIECES[WHITE.ordinal()],
+                                white ^ _white)
+            ^ Zobrist.squares(Zobrist.PIECES[BLACK.ordinal()],
+                              black ^ _black)
+            ^ Zobrist.squares(Zobrist.NO_LEFT, noLeft ^ _noLeft)
+            ^ Zobrist.squares(Zobrist.NO_RIGHT, noRight ^ _noRight);
+        _white = white;
+        _black = black;
+        _noLeft = noLeft;
+        _noRight = noRight;
+    }
+
+    /** Make PLAYER the player to move, updating my key to match. */
+    private void setWhoseMove(PieceColor player) {
+        if (player != _whoseMove) {
+            _key ^= Zobrist.BLACK_TO_MOVE;
+        }
+        _whoseMove = player;
+    }
+
+    /** Return the number of pieces of color C. */
+    int pieceCount(PieceColor c) {
+        return Integer.bitCount(pieces(c));
+    }
+
+    /** Return the sum of the positional values (see Evaluation) of the
+     *  white pieces, less that of the black pieces. */
+    int positionalValue() {
+        return _positional;
+    }
+
+    /** Return a 64-bit hash of my position: the pieces, the restrictions
+     *  on their horizontal moves, and the player to move.  Equal
+     *  positions have equal keys. */
+    long key() {
+        return _key;
+    }
+
+    /** Clear me to my starting state, with pieces in their initial
+     *  positions. */
+    void clear() {
+        setPieces("wwwwwwwwwwbb-wwbbbbbbbbbb", WHITE);
+    }
+
+    /** Copy P into me. */
+    void copy(Position p) {
+        _white = p._white;
+        _black = p._black;
+        _noLeft = p._noLeft;
+        _noRight = p._noRight;
+        _gameOver = p._gameOver;
+        if (_history.length < p._history.length) {
+            _history = new long[p._history.length];
+        }
+        System.arraycopy(p._history, 0, _history, 0,
+                         UNDO_SIZE * p._numMoves);
+        _numMoves = p._numMoves;
+        _whoseMove = p._whoseMove;
+        _key = p._key;
+        _positional = p._positional;
+    }
+
+    /** Set my contents as defined by STR.  STR consists of 25 characters,
+     *  each of which is b, w, or -, optionally interspersed with whitespace.
+     *  These give the contents of the position in row-major order, starting
+     *  with the bottom row (row 1) and left column (column a). All squares
+     *  are initialized to allow horizontal movement in either direction.
+     *  NEXTMOVE indicates whose move it is.
+     */
+    void setPieces(String str, PieceColor nextMove) {
+        if (nextMove == EMPTY || nextMove == null) {
+            throw new IllegalArgumentException("bad player color");
+        }
+        str = str.replaceAll("\\s", "");
+        if (!str.matches("[bw-]{25}")) {
+            throw new IllegalArgumentException("bad board description");
+        }
+        setWhoseMove(nextMove);
+        _gameOver = false;
+        update(_white, _black, 0, 0);
+        _numMoves = 0;
+        for (int k = 0; k < str.length(); k += 1) {
+            switch (str.charAt(k)) {
+            case '-':
+                set(k, EMPTY);
+                break;
+            case 'b':
+            case 'B':
+                set(k, BLACK);
+                break;
+            case 'w':
+            case 'W':
+                set(k, WHITE);
+                break;
+            default:
+                break;
+            }
+        }
+        checkGameOver();
+    }
+
+    /** Set my contents to the pieces in the masks (see Bitboard) WHITE
+     *  and BLACK, where the pieces on the squares in NOLEFT (NORIGHT) may
+     *  not move left (right), and NEXTMOVE is to move.  The masks must
+     *  be disjoint, and NOLEFT and NORIGHT disjoint subsets of WHITE |
+     *  BLACK.  No moves may then be undone. */
+    void setPieces(int white, int black, int noLeft, int noRight,
+                   PieceColor nextMove) {
+        setWhoseMove(nextMove);
+        _gameOver = false;
+        update(white, black, noLeft, noRight);
+        _numMoves = 0;
+        checkGameOver();
+    }
+
+    /** Return the mask of the squares whose pieces may not currently move
+     *  left. */
+    int noLeft() {
+        return _noLeft;
+    }
+
+    /** Return the mask of the squares whose pieces may not currently move
+     *  right. */
+    int noRight() {
+        return _noRight;
+    }
+
+    /** Return true iff the game is over: i.e., if the current player has
+     *  no moves. */
+    boolean gameOver() {
+        return _gameOver;
+    }
+
+    /** Return the current contents of square C R, where 'a' <= C <= 'e',
+     *  and '1' <= R <= '5'.  */
+    PieceColor get(char c, char r) {
+        assert validSquare(c, r);
+        return get(index(c, r));
+    }
+
+    /** Return the current contents of the square at linearized index K. */
+    PieceColor get(int k) {
+        assert validSquare(k);
+        if (Bitboard.contains(_white, k)) {
+            return WHITE;
+        } else if (Bitboard.contains(_black, k)) {
+            return BLACK;
+        } else {
+            return EMPTY;
+        }
+    }
+
+    /** Set get(C, R) to V, where 'a' <= C <= 'e', and
+     *  '1' <= R <= '5'. */
+    private void set(char c, char r, PieceColor v) {
+        assert validSquare(c, r);
+        set(index(c, r), v);
+    }
+
+    /** Set get(K) to V, where K is the linearized index of a square. */
+    private void set(int k, PieceColor v) {
+        assert validSquare(k);
+        int b = Bitboard.bit(k);
+        update(v == WHITE ? _white | b : _white & ~b,
+               v == BLACK ? _black | b : _black & ~b, _noLeft, _noRight);
+    }
+
+    /** Return the mask (see Bitboard) of the squares occupied by pieces
+     *  of color C. */
+    int pieces(PieceColor c) {
+        return c == WHITE ? _white : c == BLACK ? _black : 0;
+    }
+
+    /** Return the mask of the unoccupied squares. */
+    private int empty() {
+        return ~(_white | _black) & Bitboard.ALL;
+    }
+
+    /** Return true iff MOV is legal on the current board.  MOV is checked
+     *  directly, without generating the other legal moves, and so may be
+     *  any Move, such as one parsed from a player's input. */
+    boolean legalMove(Move mov) {
+        if (gameOver() || mov.isVestigial()
+            || !Bitboard.contains(pieces(_whoseMove), mov.fromIndex())) {
+            return false;
+        } else if (mov.isJump()) {
+            return validJump(mov, false);
+        } else if (jumpPossible()) {
+            return false;
+        }
+        int k = mov.fromIndex();
+        if (!Bitboard.contains(Bitboard.STEPS[_whoseMove.ordinal()][k]
+                               & empty(), mov.toIndex())) {
+            return false;
+        }
+        return !(mov.isLeftMove() && !lPoss(k)
+                 || mov.isRightMove() && !rPoss(k));
+    }
+
+    /** Return true iff MOV, a jump by a piece of the player to move, is
+     *  valid on the current board: each of its jumps captures an opposing
+     *  piece and lands on an empty square, given the jumps before it.
+     *  Unless PARTIAL, it must also be impossible to continue it. */
+    private boolean validJump(Move mov, boolean partial) {
+        int opp = pieces(_whoseMove.opposite());
+        int empty = empty();
+        int k = mov.fromIndex();
+        for (Move jump = mov; jump != null; jump = jump.jumpTail()) {
+            int to = jump.toIndex(), over = jump.jumpedIndex();
+            if (!jump.isJump() || !Bitboard.contains(Bitboard.JUMPS[k], to)
+                || !Bitboard.contains(empty, to)
+                || !Bitboard.contains(opp, over)) {
+                return false;
+            }
+            opp &= ~Bitboard.bit(over);
+            empty = (empty | Bitboard.bit(k) | Bitboard.bit(over))
+                & ~Bitboard.bit(to);
+            k = to;
+        }
+        return partial || !Bitboard.canJump(k, opp, empty);
+    }
+
+    /** Return a list of all legal moves from the current position. */
+    ArrayList<Move> getMoves() {
+        ArrayList<Move> result = new ArrayList<>();
+        getMoves(result);
+        return result;
+    }
+
+    /** Add all legal moves from the current position to MOVES. */
+    void getMoves(ArrayList<Move> moves) {
+        getMoves(_buffer);
+        for (int i = 0; i < _buffer.size(); i += 1) {
+            moves.add(_buffer.move(i));
+        }
+    }
+
+    /** Set MOVES to the codes (see Move.code()) of all legal moves from
+     *  the current position, in the same order as getMoves(). */
+    void getMoves(MoveList moves) {
+        moves.clear();
+        if (gameOver()) {
+            return;
+        }
+        int own = pieces(_whoseMove);
+        if (jumpPossible()) {
+            for (; own != 0; own &= own - 1) {
+                getJumps(moves, Bitboard.first(own));
+            }
+        } else {
+            for (; own != 0; own &= own - 1) {
+                getMoves(moves, Bitboard.first(own));
+            }
+        }
+    }
+
+    /** Add the codes of all legal non-capturing moves of the piece of the
+     *  player to move at linearized index K to MOVES. */
+    private void getMoves(MoveList moves, int k) {
+        int targets = Bitboard.STEPS[_whoseMove.ordinal()][k] & empty();
+        if (!lPoss(k)) {
+            targets &= ~Bitboard.WEST[k];
+        }
+        if (!rPoss(k)) {
+            targets &= ~Bitboard.EAST[k];
+        }
+        for (; targets != 0; targets &= targets - 1) {
+            moves.add(Move.code(k, Bitboard.first(targets)));
+        }
+    }
+
+    /** Add the codes of all legal captures by the piece of the player to
+     *  move at linearized index K to MOVES.  A capture is continued for
+     *  as long as possible, and each of its continuations is a separate
+     *  move. */
+    private void getJumps(MoveList moves, int k) {
+        int targets = Bitboard.JUMPS[k] & empty();
+        for (; targets != 0; targets &= targets - 1) {
+            int to = Bitboard.first(targets), over = (k + to) / 2;
+            if (!Bitboard.contains(pieces(_whoseMove.opposite()), over)) {
+                continue;
+            }
+            int start = moves.size();
+            int saveWhite = _white, saveBlack = _black;
+            int path = Bitboard.bit(k) | Bitboard.bit(to);
+            if (_whoseMove == WHITE) {
+                _white ^= path;
+                _black &= ~Bitboard.bit(over);
+            } else {
+                _black ^= path;
+                _white &= ~Bitboard.bit(over);
+            }
+            getJumps(moves, to);
+            _white = saveWhite;
+            _black = saveBlack;
+            if (moves.size() == start) {
+                moves.add(Move.code(k, to));
+            } else {
+                for (int i = start; i < moves.size(); i += 1) {
+                    moves.set(i, Move.extend(k, moves.get(i)));
+                }
+            }
+        }
+    }
+
+    /** Return the number of legal moves from the current position.  This
+     *  only generates moves when a capture is possible. */
+    int countMoves() {
+        if (gameOver()) {
+            return 0;
+        } else if (jumpPossible()) {
+            getMoves(_buffer);
+            return _buffer.size();
+        } else {
+            return mobility(_whoseMove);
+        }
+    }
+
+    /** Return true iff the player to move has a legal move, regardless
+     *  of gameOver(). */
+    boolean hasAnyMove() {
+        if (pieces(_whoseMove) == 0) {
+            return false;
+        } else if (jumpPossible()) {
+            return true;
+        }
+        for (int d = 0; d < Bitboard.DIRECTIONS.length; d += 1) {
+            if (stepTargets(_whoseMove, d) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Return the number of non-capturing moves the pieces of color C
+     *  could make, regardless of whose move it is or of whether a capture
+     *  is possible. */
+    int mobility(PieceColor c) {
+        int result;
+        result = 0;
+        for (int d = 0; d < Bitboard.DIRECTIONS.length; d += 1) {
+            result += Integer.bitCount(stepTargets(c, d));
+        }
+        return result;
+    }
+
+    /** Return the set of squares to which a piece of color C could make a
+     *  non-capturing move in direction Bitboard.DIRECTIONS[D]. */
+    private int stepTargets(PieceColor c, int d) {
+        int movers = pieces(c) & Bitboard.STEP_SOURCES[c.ordinal()][d];
+        if (d == Bitboard.LEFT) {
+            movers &= ~_noLeft;
+        } else if (d == Bitboard.RIGHT) {
+            movers &= ~_noRight;
+        }
+        return Bitboard.shift(movers, Bitboard.DIRECTIONS[d]) & empty();
+    }
+
+    /** Return true iff PMOV is a valid jump sequence on the current board.
+     *  PMOV must be a jump or null.  If ALLOWPARTIAL, allow jumps that
+     *  could be continued and are valid as far as they go.  */
+    boolean checkJump(Move pMov, boolean allowPartial) {
+        if (pMov == null) {
+            return true;
+        }
+        return !gameOver() && pMov.isJump()
+            && Bitboard.contains(pieces(_whoseMove), pMov.fromIndex())
+            && validJump(pMov, allowPartial);
+    }
+
+    /** Return true iff a jump is possible for a piece at position C R. */
+    boolean jumpPossible(char c, char r) {
+        return jumpPossible(index(c, r));
+    }
+
+    /** Return true iff a jump is possible for a piece at position with
+     *  linearized index K. */
+    boolean jumpPossible(int k) {
+        PieceColor cPiece = get(k);
+        if (cPiece != whoseMove()) {
+            return false;
+        }
+        return Bitboard.canJump(k, pieces(cPiece.opposite()), empty());
+    }
+
+    /** Return true iff a jump is possible from the current board. */
+    boolean jumpPossible() {
+        return Bitboard.jumpers(pieces(_whoseMove),
+                                pieces(_whoseMove.opposite()), empty()) != 0;
+    }
+
+    /** Return the color of the player who has the next move.  The
+     *  value is arbitrary if gameOver(). */
+    PieceColor whoseMove() {
+        return _whoseMove;
+    }
+
+    /** Perform the move C0R0-C1R1, or pass if C0 is '-'.  For moves
+     *  other than pass, assumes that legalMove(C0, R0, C1, R1). */
+    void makeMove(char c0, char r0, char c1, char r1) {
+        makeMove(Move.move(c0, r0, c1, r1, null));
+    }
+
+    /** Make the multi-jump C0 R0-C1 R1..., where NEXT is C1R1....
+     *  Assumes the result is legal. */
+    void makeMove(char c0, char r0, char c1, char r1, Move next) {
+        makeMove(Move.move(c0, r0, c1, r1, next));
+    }
+
+    /** Make the Move MOV on this Position, assuming it is legal. */
+    void makeMove(Move mov) {
+        if (!legalMove(mov)) {
+            throw new IllegalArgumentException("illegal move");
+        }
+        PieceColor currColor = get(mov.fromIndex());
+        setWhoseMove(_whoseMove.opposite());
+        int vacated, captured;
+        vacated = Bitboard.bit(mov.fromIndex());
+        captured = 0;
+        Move last = mov;
+        if (mov.isJump()) {
+            for (Move jump = mov; jump != null; jump = jump.jumpTail()) {
+                captured |= Bitboard.bit(jump.jumpedIndex());
+                last = jump;
+            }
+        }
+        int dest = Bitboard.bit(last.toIndex());
+        pushUndo(mov.fromIndex(), last.toIndex(), captured);
+        vacated |= captured;
+        if (currColor == WHITE) {
+            update((_white & ~vacated) | dest, _black & ~captured,
+                   _noLeft & ~vacated, _noRight & ~vacated);
+        } else {
+            update(_white & ~captured, (_black & ~vacated) | dest,
+                   _noLeft & ~vacated, _noRight & ~vacated);
+        }
+        resetLMoves(last);
+        resetRMoves(last);
+        if (!mov.isJump() && mov.isLeftMove()) {
+            logMoveLeft(mov);
+        } else if (!mov.isJump() && mov.isRightMove()) {
+            logMoveRight(mov);
+        }
+        checkGameOver();
+    }
+
+    /** Record the information needed to undo a move of the piece at FROM
+     *  to TO that captures the pieces in the mask CAPTURED. */
+    private void pushUndo(int from, int to, int captured) {
+        int k = UNDO_SIZE * _numMoves;
+        if (k == _history.length) {
+            _history = Arrays.copyOf(_history, 2 * _history.length);
+        }
+        _history[k] = captured | ((long) from << UNDO_FROM)
+            | ((long) to << UNDO_TO);
+        _history[k + 1] = _noLeft | ((long) _noRight << Bitboard.SQUARES);
+        _numMoves += 1;
+    }
+
+    /** Undo the last move, if any.  Any number of moves made since the
+     *  last clear() or setPieces may be undone in turn. */
+    void undo() {
+        if (_numMoves == 0) {
+            return;
+        }
+        _numMoves -= 1;
+        int k = UNDO_SIZE * _numMoves;
+        long rec = _history[k];
+        int captured = (int) rec & Bitboard.ALL,
+            from = Bitboard.bit((int) (rec >>> UNDO_FROM) & SQUARE_MASK),
+            to = Bitboard.bit((int) (rec >>> UNDO_TO) & SQUARE_MASK);
+        setWhoseMove(_whoseMove.opposite());
+        int noLeft = (int) _history[k + 1] & Bitboard.ALL,
+            noRight = (int) (_history[k + 1] >>> Bitboard.SQUARES);
+        if (_whoseMove == WHITE) {
+            update((_white & ~to) | from, _black | captured, noLeft, noRight);
+        } else {
+            update(_white | captured, (_black & ~to) | from, noLeft, noRight);
+        }
+        _gameOver = false;
+    }
+
+    /** Set _gameOver if the player to move has no moves. */
+    private void checkGameOver() {
+        if (!hasAnyMove()) {
+            _gameOver = true;
+        }
+    }
+
+    /** Return the number of moves that may currently be undone. */
+    int movesMade() {
+        return _numMoves;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (object instanceof Position) {
+            Position boardCast = (Position) object;
+            return _key == boardCast._key
+                && _white == boardCast._white && _black == boardCast._black
+                && _noLeft == boardCast._noLeft
+                && _noRight == boardCast._noRight
+                && _whoseMove == boardCast._whoseMove;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(_key);
+    }
+
+    @Override
+    public String toString() {
+        return toString(false);
+    }
+
+    /** Return a text depiction of the board.  If LEGEND, supply row and
+     *  column numbers around the edges. */
+    String toString(boolean legend) {
+        Formatter out = new Formatter();
+        boolean yessir = false;
+        if (legend) {
+            out.format("1 2 3 4 5\n");
+        }
+        String col1, col2, col3, col4, col5, leg;
+        leg = "";
+        for (int i = 4; i >= 0; i--) {
+            if (legend) {
+                out.format("1 2 3 4 5\n");
+                leg = new String[]{"a", "b", "c", "d", "e"}[i];
+                yessir = true;
+            }
+            col1 = get(i * 5).shortName();
+            col2 = get(i * 5 + 1).shortName();
+            col3 = get(i * 5 + 2).shortName();
+            col4 = get(i * 5 + 3).shortName();
+            col5 = get(i * 5 + 4).shortName();
+            out.format("  %s%s %s %s %s %s%s",
+                       leg, col1, col2, col3, col4, col5, leg);
+            if (i != 0) {
+                out.format("\n");
+            }
+        }
+        if (yessir) {
+            out.format("/n  1 2 3 4 5");
+        }
+        return out.toString();
+    }
+
+    /** Player that is on move. */
+    private PieceColor _whoseMove = WHITE;
+
+    /** Zobrist key of the current position (see key()). */
+    private long _key;
+
+    /** Positional value of the current position (see positionalValue()). */
+    private int _positional;
+
+    /** Set true when game ends. */
+    private boolean _gameOver;
+
+    /** Undo records, UNDO_SIZE entries for each move made since the last
+     *  setPieces.  The first entry of each holds the mask of captured
+     *  squares and the source and destination squares of the moving
+     *  piece; the second holds the prior values of _noLeft and _noRight.
+     *  A move is only made when the game is not over, and so undoing one
+     *  always leaves the game in progress. */
+    private long[] _history = new long[UNDO_SIZE * INITIAL_MOVES];
+
+    /** Number of moves recorded in _history. */
+    private int _numMoves;
+
+    /** Holds the legal moves while they are being checked or converted
+     *  to Moves. */
+    private final MoveList _buffer = new MoveList();
+
+    /** Number of _history entries per move. */
+    private static final int UNDO_SIZE = 2;
+
+    /** Initial number of moves _history has room for. */
+    private static final int INITIAL_MOVES = 64;
+
+    /** Positions of the source and destination squares in the first
+     *  undo record of a move. */
+    private static final int
+        UNDO_FROM = Bitboard.SQUARES,
+        UNDO_TO = UNDO_FROM + 5;
+
+    /** Mask for a square number extracted from an undo record. */
+    private static final int SQUARE_MASK = 0x1f;
+}
@@ -0,0 +1,253 @@
+package qirkat;
+
+import java.io.File;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/** Tunable parameters of the search performed by an AI.  Each may be set
+ *  from a command-line option of the form --NAME=VALUE.
+ *  @author Noah Alcus
+ */
+class SearchOptions {
+
+    /** Options with default values. */
+    SearchOptions() {
+        _hashMegabytes = DEFAULT_HASH_MEGABYTES;
+        _timeBudget = DEFAULT_TIME_BUDGET;
+        _maxDepth = DEFAULT_MAX_DEPTH;
+        _threads = 1;
+        _treeMegabytes = DEFAULT_TREE_MEGABYTES;
+    }
+
+    /** A copy of OPTIONS. */
+    SearchOptions(SearchOptions options) {
+        _hashMegabytes = options._hashMegabytes;
+        _timeBudget = options._timeBudget;
+        _maxDepth = options._maxDepth;
+        _threads = options._threads;
+        _tablebases = options._tablebases;
+        _book = options._book;
+        _ponder = options._ponder;
+        _playouts = options._playouts;
+        _treeMegabytes = options._treeMegabytes;
+    }
+
+    /** If ARG is an option of the form --NAME=VALUE that I recognize,
+     *  with a valid VALUE, set the corresponding parameter and return
+     *  true.  Otherwise return false.  The value of --tablebases must be
+     *  an existing directory, and that of --book a valid opening book. */
+    boolean parse(String arg) {
+        Matcher mat = OPTION_PATTERN.matcher(arg);
+        if (!mat.matches()) {
+            return false;
+        }
+        switch (mat.group(1)) {
+        case "tablebases":
+            if (!new File(mat.group(2)).isDirectory()) {
+                return false;
+            }
+            setTablebases(new File(mat.group(2)));
+            return true;
+        case "book":
+            if (OpeningBook.open(new File(mat.group(2))) == null) {
+                return false;
+            }
+            setBook(new File(mat.group(2)));
+            return true;
+        case "ponder":
+            if (!mat.group(2).matches("true|false")) {
+                return false;
+            }
+            setPonder(mat.group(2).equals("true"));
+            return true;
+        default:
+            break;
+        }
+        try {
+            int value = Integer.parseInt(mat.group(2));
+            switch (mat.group(1)) {
+            case "hash":
+                setHashMegabytes(value);
+                return true;
+            case "time":
+                setTimeBudget(value);
+                return true;
+            case "depth":
+                setMaxDepth(value);
+                return true;
+            case "threads":
+                setThreads(value);
+                return true;
+            case "playouts":
+                setPlayouts(value);
+                return true;
+            case "tree":
+                setTreeMegabytes(value);
+                return true;
+            default:
+                return false;
+            }
+        } catch (IllegalArgumentException excp) {
+            return false;
+        }
+    }
+
+    /** Return the memory budget of an AI's transposition table in
+     *  megabytes.  0 indicates that no table is used. */
+    int hashMegabytes() {
+        return _hashMegabytes;
+    }
+
+    /** Set hashMegabytes() to MEGABYTES. */
+    void setHashMegabytes(int megabytes) {
+        if (megabytes < 0) {
+            throw new IllegalArgumentException("negative table size");
+        }
+        _hashMegabytes = megabytes;
+    }
+
+    /** Return the time an AI may spend choosing a move, in
+     *  milliseconds.  0 indicates no limit. */
+    int timeBudget() {
+        return _timeBudget;
+    }
+
+    /** Set timeBudget() to MILLIS. */
+    void setTimeBudget(int millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("negative time budget");
+        }
+        _timeBudget = millis;
+    }
+
+    /** Return the maximum depth to which an AI searches. */
+    int maxDepth() {
+        return _maxDepth;
+    }
+
+    /** Set maxDepth() to DEPTH. */
+    void setMaxDepth(int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("bad search depth");
+        }
+        _maxDepth = depth;
+    }
+
+    /** Return the number of threads an AI uses to search. */
+    int threads() {
+        return _threads;
+    }
+
+    /** Set threads() to THREADS. */
+    void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("bad thread count");
+        }
+        _threads = threads;
+    }
+
+    /** Return the directory holding the tablebases (see Tablebases) an
+     *  AI probes, or null if it uses none. */
+    File tablebases() {
+        return _tablebases;
+    }
+
+    /** Set tablebases() to DIRECTORY. */
+    void setTablebases(File directory) {
+        _tablebases = directory;
+    }
+
+    /** Return the opening book file (see OpeningBook) an AI consults,
+     *  or null if it uses none. */
+    File book() {
+        return _book;
+    }
+
+    /** Set book() to FILE. */
+    void setBook(File file) {
+        _book = file;
+    }
+
+    /** Return true iff an AI keeps searching while its opponent
+     *  chooses a move. */
+    boolean ponder() {
+        return _ponder;
+    }
+
+    /** Set ponder() to PONDER. */
+    void setPonder(boolean ponder) {
+        _ponder = ponder;
+    }
+
+    /** Return the number of playouts an MCTS player makes for each
+     *  move.  0 indicates that only its time budget limits them. */
+    int playouts() {
+        return _playouts;
+    }
+
+    /** Set playouts() to PLAYOUTS. */
+    void setPlayouts(int playouts) {
+        if (playouts < 0) {
+            throw new IllegalArgumentException("negative playout count");
+        }
+        _playouts = playouts;
+    }
+
+    /** Return the memory budget of an MCTS player's search trees in
+     *  megabytes. */
+    int treeMegabytes() {
+        return _treeMegabytes;
+    }
+
+    /** Set treeMegabytes() to MEGABYTES. */
+    void setTreeMegabytes(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("bad tree size");
+        }
+        _treeMegabytes = megabytes;
+    }
+
+    /** Default value of hashMegabytes(). */
+    static final int DEFAULT_HASH_MEGABYTES = 16;
+
+    /** Default value of timeBudget(). */
+    static final int DEFAULT_TIME_BUDGET = 1000;
+
+    /** Default value of maxDepth(). */
+    static final int DEFAULT_MAX_DEPTH = 64;
+
+    /** Default value of treeMegabytes(). */
+    static final int DEFAULT_TREE_MEGABYTES = 64;
+
+    /** Syntax of a command-line option. */
+    private static final Pattern OPTION_PATTERN =
+        Pattern.compile("--([a-z-]+)=(\\S+)");
+
+    /** Transposition table size in megabytes. */
+    private int _hashMegabytes;
+
+    /** Time budget per move in milliseconds. */
+    private int _timeBudget;
+
+    /** Maximum search depth. */
+    private int _maxDepth;
+
+    /** Number of search threads. */
+    private int _threads;
+
+    /** Tablebase directory, or null. */
+    private File _tablebases;
+
+    /** Opening book file, or null. */
+    private File _book;
+
+    /** True iff AIs search on their opponents' time. */
+    private boolean _ponder;
+
+    /** Playouts per move, or 0. */
+    private int _playouts;
+
+    /** Search tree size in megabytes. */
+    private int _treeMegabytes;
+
+}
@@ -0,0 +1,331 @@
+package qirkat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import static qirkat.PieceColor.*;
+
+/** The solved values of all positions with a given number of white and
+ *  black pieces, as computed by a TablebaseBuilder and kept in a file
+ *  that is mapped into memory.
+ *
+ *  Each position has an index, formed from (from most to least
+ *  significant) the set of squares holding white pieces, the set of the
+ *  remaining squares holding black pieces, the restriction on the
+ *  horizontal moves of each piece (a base-3 digit per piece: none, no
+ *  left moves, or no right moves), and the player to move.  Each set of
+ *  squares is numbered by its rank in the colexicographic order of the
+ *  sets of its size, so that the indices of the positions with given
+ *  numbers of pieces are consecutive integers from 0.
+ *
+ *  The entry for each position is 16 bits: a result for the player to
+ *  move (DRAW, WIN, or LOSS) and, for wins and losses, the number of
+ *  moves (plies) to the end of the game with best play, the winner
+ *  ending the game as soon as possible and the loser as late as
+ *  possible.  A draw is a position from which neither player can force
+ *  the game to end.
+ *  @author Noah Alcus
+ */
+class Tablebase {
+
+    /** Results of a position for the player to move. */
+    static final int DRAW = 0, WIN = 1, LOSS = 2;
+
+    /** Largest distance an entry can record. */
+    static final int MAX_DISTANCE = (1 << 14) - 1;
+
+    /** Largest total number of pieces for which tables can be built. */
+    static final int MAX_PIECES = 5;
+
+    /** Return the entry for a position with result RESULT, DISTANCE moves
+     *  from the end of the game. */
+    static int entry(int result, int distance) {
+        assert distance <= MAX_DISTANCE;
+        return distance << 2 | result;
+    }
+
+    /** Return the result recorded in ENTRY. */
+    static int result(int entry) {
+        return entry & 3;
+    }
+
+    /** Return the distance recorded in ENTRY. */
+    static int distance(int entry) {
+        return entry >>> 2;
+    }
+
+    /** Return the number of positions with WHITE white and BLACK black
+     *  pieces. */
+    static long size(int white, int black) {
+        return BINOMIAL[Bitboard.SQUARES][white]
+            * BINOMIAL[Bitboard.SQUARES - white][black]
+            * POWERS_OF_3[white + black] * 2;
+    }
+
+    /** Return the index of the position in which the masks (see
+     *  Bitboard) WHITE and BLACK give the pieces, the pieces on NOLEFT
+     *  and NORIGHT may not move left and right respectively, and
+     *  NEXTMOVE is to move. */
+    static int index(int white, int black, int noLeft, int noRight,
+                     PieceColor nextMove) {
+        int w = Integer.bitCount(white), b = Integer.bitCount(black);
+        int whiteRank = rank(white), blackRank = rank(compress(black, white));
+        int flags, power;
+        flags = 0;
+        power = 1;
+        for (int pieces = white; pieces != 0; pieces &= pieces - 1) {
+            flags += power * flag(pieces & -pieces, noLeft, noRight);
+            power *= 3;
+        }
+        for (int pieces = black; pieces != 0; pieces &= pieces - 1) {
+            flags += power * flag(pieces & -pieces, noLeft, noRight);
+            power *= 3;
+        }
+        long index = (((long) whiteRank * BINOMIAL[Bitboard.SQUARES - w][b]
+                       + blackRank) * power + flags) * 2
+            + (nextMove == WHITE ? 0 : 1);
+        return (int) index;
+    }
+
+    /** Return the index of POSITION. */
+    static int index(Position position) {
+        return index(position.pieces(WHITE), position.pieces(BLACK),
+                     position.noLeft(), position.noRight(),
+                     position.whoseMove());
+    }
+
+    /** Set POSITION to the position with WHITE white and BLACK black
+     *  pieces whose index is INDEX. */
+    static void decode(int white, int black, int index, Position position) {
+        PieceColor nextMove = (index & 1) == 0 ? WHITE : BLACK;
+        long rest = index >>> 1;
+        int power = (int) POWERS_OF_3[white + black];
+        int flags = (int) (rest % power);
+        rest /= power;
+        long blackCombos = BINOMIAL[Bitboard.SQUARES - white][black];
+        int whiteMask = unrank((int) (rest / blackCombos), white);
+        int blackMask = expand(unrank((int) (rest % blackCombos), black),
+                               whiteMask);
+        int noLeft, noRight;
+        noLeft = noRight = 0;
+        for (int pieces = whiteMask; pieces != 0; pieces &= pieces - 1) {
+            int digit = flags % 3;
+            flags /= 3;
+            if (digit == NO_LEFT) {
+                noLeft |= pieces & -pieces;
+            } else if (digit == NO_RIGHT) {
+                noRight |= pieces & -pieces;
+            }
+        }
+        for (int pieces = blackMask; pieces != 0; pieces &= pieces - 1) {
+            int digit = flags % 3;
+            flags /= 3;
+            if (digit == NO_LEFT) {
+                noLeft |= pieces & -pieces;
+            } else if (digit == NO_RIGHT) {
+                noRight |= pieces & -pieces;
+            }
+        }
+        position.setPieces(whiteMask, blackMask, noLeft, noRight, nextMove);
+    }
+
+    /** Return the file in DIRECTORY holding the table for WHITE white and
+     *  BLACK black pieces. */
+    static File file(File directory, int white, int black) {
+        return new File(directory,
+                        String.format("qirkat-%dw%db.qtb", white, black));
+    }
+
+    /** Write ENTRIES, the entries of the table for WHITE white and BLACK
+     *  black pieces, to the appropriate file in DIRECTORY. */
+    static void write(File directory, int white, int black, short[] entries)
+        throws IOException {
+        try (FileChannel out =
+             FileChannel.open(file(directory, white, black).toPath(),
+                              StandardOpenOption.CREATE,
+                              StandardOpenOption.WRITE,
+                              StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+            buffer.putInt(MAGIC).putShort((short) white)
+                .putShort((short) black);
+            for (short entry : entries) {
+                if (!buffer.hasRemaining()) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    buffer.clear();
+                }
+                buffer.putShort(entry);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+        }
+    }
+
+    /** The table for WHITE white and BLACK black pieces in DIRECTORY, or
+     *  null if there is none, or it is not a valid table. */
+    static Tablebase open(File directory, int white, int black) {
+        File file = file(directory, white, black);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (FileChannel in = FileChannel.open(file.toPath(),
+                                               StandardOpenOption.READ)) {
+            long size = size(white, black);
+            if (in.size() != HEADER_SIZE + 2 * size) {
+                return null;
+            }
+            MappedByteBuffer buffer =
+                in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            if (buffer.getInt(0) != MAGIC || buffer.getShort(4) != white
+                || buffer.getShort(6) != black) {
+                return null;
+            }
+            return new Tablebase(white, black, buffer);
+        } catch (IOException excp) {
+            return null;
+        }
+    }
+
+    /** A table for WHITE white and BLACK black pieces whose entries are in
+     *  BUFFER, after the header. */
+    private Tablebase(int white, int black, ByteBuffer buffer) {
+        _white = white;
+        _black = black;
+        _buffer = buffer;
+    }
+
+    /** Return the number of white pieces in my positions. */
+    int white() {
+        return _white;
+    }
+
+    /** Return the number of black pieces in my positions. */
+    int black() {
+        return _black;
+    }
+
+    /** Return the entry for the position with index INDEX. */
+    int get(int index) {
+        return _buffer.getShort(HEADER_SIZE + 2 * index) & 0xffff;
+    }
+
+    /** Return the rank of the set of squares MASK among the sets of its
+     *  size, in colexicographic order. */
+    private static int rank(int mask) {
+        int result, i;
+        result = 0;
+        i = 1;
+        for (; mask != 0; mask &= mask - 1, i += 1) {
+            result += BINOMIAL[Bitboard.first(mask)][i];
+        }
+        return result;
+    }
+
+    /** Return the set of N squares whose rank (see rank) is RANK. */
+    private static int unrank(int rank, int n) {
+        int result;
+        result = 0;
+        for (int i = n, k = Bitboard.SQUARES - 1; i > 0; i -= 1) {
+            while (BINOMIAL[k][i] > rank) {
+                k -= 1;
+            }
+            rank -= BINOMIAL[k][i];
+            result |= Bitboard.bit(k);
+        }
+        return result;
+    }
+
+    /** Return MASK, a set of squares none of which is in USED, as a set of
+     *  the squares not in USED: each square K becomes K less the number of
+     *  squares in USED below K. */
+    private static int compress(int mask, int used) {
+        int result;
+        result = 0;
+        for (; mask != 0; mask &= mask - 1) {
+            int k = Bitboard.first(mask);
+            result |= Bitboard.bit(k - Integer.bitCount(used
+                                                        & (Bitboard.bit(k)
+                                                           - 1)));
+        }
+        return result;
+    }
+
+    /** Return the set of squares MASK, taken as a set of the squares not
+     *  in USED, as a set of squares on the board (the inverse of
+     *  compress). */
+    private static int expand(int mask, int used) {
+        int result, k;
+        result = 0;
+        k = 0;
+        for (int free = ~used & Bitboard.ALL; free != 0; free &= free - 1) {
+            if ((mask & Bitboard.bit(k)) != 0) {
+                result |= free & -free;
+            }
+            k += 1;
+        }
+        return result;
+    }
+
+    /** Return the digit for the restriction on the piece whose square is
+     *  the single bit SQUARE, given the restricted squares NOLEFT and
+     *  NORIGHT. */
+    private static int flag(int square, int noLeft, int noRight) {
+        if ((noLeft & square) != 0) {
+            return NO_LEFT;
+        } else if ((noRight & square) != 0) {
+            return NO_RIGHT;
+        } else {
+            return 0;
+        }
+    }
+
+    /** Digits denoting a piece that may not move left, and one that may
+     *  not move right. */
+    private static final int NO_LEFT = 1, NO_RIGHT = 2;
+
+    /** BINOMIAL[N][K] is N choose K, for K <= MAX_PIECES. */
+    private static final long[][] BINOMIAL =
+        new long[Bitboard.SQUARES + 1][MAX_PIECES + 1];
+
+    /** POWERS_OF_3[N] is 3 to the N. */
+    private static final long[] POWERS_OF_3 = new long[MAX_PIECES + 1];
+
+    static {
+        for (int n = 0; n <= Bitboard.SQUARES; n += 1) {
+            BINOMIAL[n][0] = 1;
+            for (int k = 1; k <= MAX_PIECES; k += 1) {
+                BINOMIAL[n][k] =
+                    n == 0 ? 0 : BINOMIAL[n - 1][k - 1] + BINOMIAL[n - 1][k];
+            }
+        }
+        POWERS_OF_3[0] = 1;
+        for (int n = 1; n <= MAX_PIECES; n += 1) {
+            POWERS_OF_3[n] = 3 * POWERS_OF_3[n - 1];
+        }
+    }
+
+    /** Identifies a table file ("QTB1"). */
+    private static final int MAGIC = 0x51544231;
+
+    /** Size of a table file's header: MAGIC and the numbers of white and
+     *  black pieces. */
+    private static final int HEADER_SIZE = 8;
+
+    /** Size of the buffer used to write a table. */
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    /** Numbers of white and black pieces in my positions. */
+    private final int _white, _black;
+
+    /** My file's contents. */
+    private final ByteBuffer _buffer;
+
+}
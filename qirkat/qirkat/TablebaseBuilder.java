@@ -0,0 +1,390 @@
+package qirkat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static qirkat.PieceColor.*;
+import static qirkat.Tablebase.*;
+
+/** Builds Tablebases by retrograde analysis.
+ *
+ *  The tables for a given number of white and black pieces are built
+ *  after those for fewer pieces.  First, every position is examined:
+ *  one whose player to move cannot move is lost at once; one with
+ *  captures, which lead only to positions with fewer pieces, is valued
+ *  from the tables already built; any other position records the number
+ *  of its moves, all of which lead to positions in the same table.
+ *
+ *  Then, for D = 0, 1, ..., the positions won or lost in D moves are
+ *  taken in turn, and the moves that could have led to each of them are
+ *  generated backwards ("unmade").  A position from which some move
+ *  leads to a position lost in D moves is won in D + 1.  One whose moves
+ *  all lead to positions won for the opponent is lost in D + 1 when the
+ *  last of them is found, which is counted down from its number of
+ *  moves.  The positions never valued this way are draws.  Each pass is
+ *  divided among several threads, which update the values of positions
+ *  with atomic operations.
+ *  @author Noah Alcus
+ */
+class TablebaseBuilder {
+
+    /** Build tables as directed by ARGS, which are
+     *      [ --threads=N ] PIECES DIRECTORY
+     *  building the tables for all positions with at most PIECES pieces
+     *  that are not already in DIRECTORY, using N threads. */
+    public static void main(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int k;
+        k = 0;
+        if (k < args.length) {
+            Matcher mat = THREADS_OPTION.matcher(args[k]);
+            if (mat.matches()) {
+                threads = Integer.parseInt(mat.group(1));
+                k += 1;
+            }
+        }
+        if (args.length != k + 2 || !args[k].matches("\\d+")
+            || threads < 1) {
+            usage();
+        }
+        int pieces = Integer.parseInt(args[k]);
+        if (pieces < 2 || pieces > MAX_PIECES) {
+            System.err.printf("Number of pieces must be from 2 to %d.%n",
+                              MAX_PIECES);
+            System.exit(1);
+        }
+        File directory = new File(args[k + 1]);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            System.err.printf("Cannot create %s.%n", directory);
+            System.exit(1);
+        }
+        try {
+            new TablebaseBuilder(directory, threads).build(pieces,
+                                                           new TextReporter());
+        } catch (IOException excp) {
+            System.err.printf("Could not write tables: %s%n",
+                              excp.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** Give usage message and exit. */
+    private static void usage() {
+        System.err.println("Usage: java qirkat.TablebaseBuilder"
+                           + " [--threads=N] PIECES DIRECTORY");
+        System.exit(1);
+    }
+
+    /** A builder writing tables into DIRECTORY and using THREADS
+     *  threads. */
+    TablebaseBuilder(File directory, int threads) {
+        _directory = directory;
+        _pool = new ForkJoinPool(threads);
+        _tables = new Tablebases();
+    }
+
+    /** Build the tables for all positions with at most PIECES pieces,
+     *  except those already in my directory, reporting progress to OUT.
+     *  Return the complete set of tables.  My threads end when I am
+     *  done, so I may build only once. */
+    Tablebases build(int pieces, Reporter out) throws IOException {
+        try {
+            for (int n = 2; n <= pieces; n += 1) {
+                for (int w = 1; w < n; w += 1) {
+                    Tablebase table = Tablebase.open(_directory, w, n - w);
+                    if (table == null) {
+                        long time0 = System.currentTimeMillis();
+                        build(w, n - w);
+                        table = Tablebase.open(_directory, w, n - w);
+                        if (table == null) {
+                            throw new IOException(
+                                "cannot read back "
+                                + file(_directory, w, n - w));
+                        }
+                        out.moveMsg("%dw%db: %d positions, %d won, %d lost,"
+                                    + " %d drawn, longest %d moves (%d msec)",
+                                    w, n - w, _entries.length(), _wins.get(),
+                                    _losses.get(),
+                                    _entries.length() - _wins.get()
+                                    - _losses.get(),
+                                    _longest.get(),
+                                    System.currentTimeMillis() - time0);
+                    }
+                    _tables.add(table);
+                }
+            }
+        } finally {
+            _pool.shutdown();
+        }
+        _entries = null;
+        return _tables;
+    }
+
+    /** Build and write the table for WHITE white and BLACK black
+     *  pieces. */
+    private void build(int white, int black) throws IOException {
+        _white = white;
+        _black = black;
+        _entries = new AtomicIntegerArray((int) size(white, black));
+        _longest.set(0);
+        _wins.set(0);
+        _losses.set(0);
+        inParallel(this::initialize);
+        for (int d = 0; d <= _longest.get(); d += 1) {
+            int distance = d;
+            inParallel((start, end) -> unmake(start, end, distance));
+        }
+        short[] result = new short[_entries.length()];
+        for (int i = 0; i < result.length; i += 1) {
+            int state = _entries.get(i);
+            result[i] = (short) (state < 0 ? -1 - state : entry(DRAW, 0));
+        }
+        write(_directory, white, black, result);
+    }
+
+    /** A range of the positions in the table being built. */
+    private interface Range {
+        /** Process the positions with indices START <= I < END. */
+        void process(int start, int end);
+    }
+
+    /** Process all positions in the table being built with BODY, dividing
+     *  them among my threads. */
+    private void inParallel(Range body) {
+        ArrayList<Callable<Void>> tasks = new ArrayList<>();
+        int size = _entries.length();
+        for (int start = 0; start < size; start += CHUNK_SIZE) {
+            int begin = start, end = Math.min(size, start + CHUNK_SIZE);
+            tasks.add(() -> {
+                body.process(begin, end);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> task : _pool.invokeAll(tasks)) {
+                task.get();
+            }
+        } catch (InterruptedException | ExecutionException excp) {
+            throw new IllegalStateException("tablebase build failed", excp);
+        }
+    }
+
+    /** Set the states of the positions with indices START <= I < END in
+     *  the table being built to their values, if these are known without
+     *  examining the same table, and otherwise to their numbers of
+     *  moves. */
+    private void initialize(int start, int end) {
+        Position position = new Position();
+        MoveList moves = new MoveList();
+        for (int i = start; i < end; i += 1) {
+            decode(_white, _black, i, position);
+            if (position.gameOver()) {
+                resolve(i, entry(LOSS, 0));
+            } else if (!position.jumpPossible()) {
+                _entries.set(i, position.countMoves());
+            } else {
+                position.getMoves(moves);
+                int win, loss;
+                boolean draw;
+                win = loss = -1;
+                draw = false;
+                for (int k = 0; k < moves.size(); k += 1) {
+                    position.makeMove(moves.move(k));
+                    int reply = _tables.probe(position);
+                    position.undo();
+                    if (result(reply) == LOSS) {
+                        win = win < 0 ? distance(reply)
+                            : Math.min(win, distance(reply));
+                    } else if (result(reply) == WIN) {
+                        loss = Math.max(loss, distance(reply));
+                    } else {
+                        draw = true;
+                    }
+                }
+                if (win >= 0) {
+                    resolve(i, entry(WIN, win + 1));
+                } else if (draw) {
+                    resolve(i, entry(DRAW, 0));
+                } else {
+                    resolve(i, entry(LOSS, loss + 1));
+                }
+            }
+        }
+    }
+
+    /** For each position with index START <= I < END in the table being
+     *  built that is won or lost in DISTANCE moves, find the positions
+     *  from which a non-capturing move leads to it, and update their
+     *  states. */
+    private void unmake(int start, int end, int distance) {
+        Position position = new Position();
+        for (int i = start; i < end; i += 1) {
+            int state = _entries.get(i);
+            if (state >= 0) {
+                continue;
+            }
+            int value = -1 - state;
+            if (result(value) == DRAW || distance(value) != distance) {
+                continue;
+            }
+            decode(_white, _black, i, position);
+            PieceColor mover = position.whoseMove().opposite();
+            int own = position.pieces(mover),
+                other = position.pieces(mover.opposite()),
+                noLeft = position.noLeft(), noRight = position.noRight();
+            int empty = ~(own | other) & Bitboard.ALL;
+            for (int pieces = own; pieces != 0; pieces &= pieces - 1) {
+                int to = Bitboard.first(pieces);
+                int sources = SOURCES[mover.ordinal()][to] & empty;
+                for (; sources != 0; sources &= sources - 1) {
+                    int from = Bitboard.first(sources);
+                    boolean left = to == from - 1, right = to == from + 1;
+                    if (Bitboard.contains(noRight, to) != left
+                        || Bitboard.contains(noLeft, to) != right) {
+                        continue;
+                    }
+                    int moved = own & ~Bitboard.bit(to) | Bitboard.bit(from);
+                    int clearLeft = noLeft & ~Bitboard.bit(to),
+                        clearRight = noRight & ~Bitboard.bit(to);
+                    for (int flag = 0; flag < 3; flag += 1) {
+                        if (flag == 1 && left || flag == 2 && right) {
+                            continue;
+                        }
+                        int prevLeft = clearLeft
+                            | (flag == 1 ? Bitboard.bit(from) : 0);
+                        int prevRight = clearRight
+                            | (flag == 2 ? Bitboard.bit(from) : 0);
+                        int prev = mover == WHITE
+                            ? index(moved, other, prevLeft, prevRight, mover)
+                            : index(other, moved, prevLeft, prevRight,
+                                    mover);
+                        if (result(value) == LOSS) {
+                            win(prev, distance + 1);
+                        } else {
+                            countDown(prev, distance + 1);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /** Record that the position with index I is won in DISTANCE moves,
+     *  unless it is already valued. */
+    private void win(int i, int distance) {
+        while (true) {
+            int state = _entries.get(i);
+            if (state < 0) {
+                return;
+            } else if (_entries.compareAndSet(i, state,
+                                              -1 - entry(WIN, distance))) {
+                count(entry(WIN, distance));
+                return;
+            }
+        }
+    }
+
+    /** Record that one more move from the position with index I leads to
+     *  a position won by the opponent, in which case, if it was the last
+     *  of its moves, it is lost in DISTANCE moves. */
+    private void countDown(int i, int distance) {
+        while (true) {
+            int state = _entries.get(i);
+            if (state < 0) {
+                return;
+            } else if (state == 1) {
+                if (_entries.compareAndSet(i, 1,
+                                           -1 - entry(LOSS, distance))) {
+                    count(entry(LOSS, distance));
+                    return;
+                }
+            } else if (_entries.compareAndSet(i, state, state - 1)) {
+                return;
+            }
+        }
+    }
+
+    /** Set the state of the position with index I to its value,
+     *  VALUE. */
+    private void resolve(int i, int value) {
+        _entries.set(i, -1 - value);
+        count(value);
+    }
+
+    /** Add VALUE, the value of a newly valued position, to the
+     *  statistics. */
+    private void count(int value) {
+        if (result(value) == DRAW) {
+            return;
+        }
+        if (distance(value) >= MAX_DISTANCE) {
+            throw new IllegalStateException("game too long for tablebase");
+        }
+        (result(value) == WIN ? _wins : _losses).incrementAndGet();
+        _longest.accumulateAndGet(distance(value), Math::max);
+    }
+
+    /** SOURCES[C][K] is the set of squares from which a piece with ordinal
+     *  C may make a non-capturing move to K, ignoring occupancy and the
+     *  restrictions on horizontal moves. */
+    private static final int[][] SOURCES =
+        new int[PieceColor.values().length][Bitboard.SQUARES];
+
+    static {
+        for (PieceColor c : new PieceColor[] { WHITE, BLACK }) {
+            for (int k = 0; k < Bitboard.SQUARES; k += 1) {
+                for (int to = 0; to < Bitboard.SQUARES; to += 1) {
+                    if (Bitboard.contains(Bitboard.STEPS[c.ordinal()][k],
+                                          to)) {
+                        SOURCES[c.ordinal()][to] |= Bitboard.bit(k);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Syntax of the option setting the number of threads. */
+    private static final Pattern THREADS_OPTION =
+        Pattern.compile("--threads=(\\d+)");
+
+    /** Number of positions processed by each parallel task. */
+    private static final int CHUNK_SIZE = 1 << 14;
+
+    /** Directory holding the tables. */
+    private final File _directory;
+
+    /** Threads used to build each table. */
+    private final ForkJoinPool _pool;
+
+    /** The tables built or found so far. */
+    private final Tablebases _tables;
+
+    /** Numbers of white and black pieces in the table being built. */
+    private int _white, _black;
+
+    /** States of the positions in the table being built, by index.  A
+     *  valued position has state -1 - V, where V is its entry (see
+     *  Tablebase).  Any other has state N > 0, where N is the number of
+     *  its moves not yet found to lead to positions won by the
+     *  opponent. */
+    private AtomicIntegerArray _entries;
+
+    /** The greatest distance of any position valued so far in the table
+     *  being built. */
+    private final AtomicInteger _longest = new AtomicInteger();
+
+    /** Numbers of positions in the table being built found so far to be
+     *  won and lost. */
+    private final AtomicInteger _wins = new AtomicInteger(),
+        _losses = new AtomicInteger();
+
+}
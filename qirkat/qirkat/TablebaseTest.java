@@ -0,0 +1,113 @@
+package qirkat;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static qirkat.PieceColor.*;
+import static qirkat.Tablebase.*;
+
+/** Tests of tablebases.
+ *  @author Noah Alcus
+ */
+public class TablebaseTest {
+
+    /** Return tables for up to PIECES pieces, built in a new temporary
+     *  directory. */
+    private static Tablebases build(int pieces) throws IOException {
+        File directory = Files.createTempDirectory("qirkat-tb").toFile();
+        directory.deleteOnExit();
+        Tablebases result =
+            new TablebaseBuilder(directory, 2).build(pieces,
+                                                     new TextReporter());
+        for (File file : directory.listFiles()) {
+            file.deleteOnExit();
+        }
+        return result;
+    }
+
+    @Test
+    public void testIndex() {
+        Position p = new Position(), q = new Position();
+        Random random = new Random(SEED);
+        for (int trial = 0; trial < TRIALS; trial += 1) {
+            int i = random.nextInt((int) size(2, 2));
+            decode(2, 2, i, p);
+            assertEquals(i, index(p));
+            decode(2, 2, index(p), q);
+            assertEquals(p, q);
+        }
+        p.setPieces("--w-- ----- ----- -bb-- -----", WHITE);
+        p.makeMove(Move.parseMove("c1-d1"));
+        decode(1, 2, index(p), q);
+        assertEquals(p, q);
+        assertEquals(Bitboard.bit(Move.index('d', '1')), q.noLeft());
+    }
+
+    @Test
+    public void testValues() throws IOException {
+        Tablebases tables = build(3);
+        assertEquals(3, tables.maxPieces());
+        Position p = new Position();
+        Random random = new Random(SEED);
+        MoveList moves = new MoveList();
+        for (int trial = 0; trial < TRIALS; trial += 1) {
+            int w = 1 + random.nextInt(2), b = 3 - w;
+            decode(w, b, random.nextInt((int) size(w, b)), p);
+            int value = tables.probe(p);
+            if (p.gameOver()) {
+                assertEquals(entry(LOSS, 0), value);
+                continue;
+            }
+            p.getMoves(moves);
+            int quickestWin = Integer.MAX_VALUE, slowestLoss = -1;
+            for (int k = 0; k < moves.size(); k += 1) {
+                p.makeMove(moves.move(k));
+                int reply = tables.probe(p);
+                p.undo();
+                assertNotEquals(DRAW, result(reply));
+                if (result(reply) == LOSS) {
+                    quickestWin = Math.min(quickestWin, distance(reply) + 1);
+                } else {
+                    slowestLoss = Math.max(slowestLoss, distance(reply) + 1);
+                }
+            }
+            if (quickestWin < Integer.MAX_VALUE) {
+                assertEquals(entry(WIN, quickestWin), value);
+            } else {
+                assertEquals(entry(LOSS, slowestLoss), value);
+            }
+        }
+    }
+
+    @Test
+    public void testOpen() throws IOException {
+        File directory = Files.createTempDirectory("qirkat-tb").toFile();
+        directory.deleteOnExit();
+        Tablebases tables = Tablebases.open(directory);
+        assertEquals(1, tables.maxPieces());
+        new TablebaseBuilder(directory, 1).build(3, new TextReporter());
+        for (File file : directory.listFiles()) {
+            file.deleteOnExit();
+        }
+        assertSame(tables, Tablebases.open(directory));
+        assertEquals(3, tables.maxPieces());
+
+        SearchOptions options = new SearchOptions();
+        assertTrue(options.parse("--tablebases=" + directory));
+        assertFalse(options.parse("--tablebases="
+                                  + new File(directory, "none")));
+        assertEquals(directory, options.tablebases());
+    }
+
+    /** Seed for choosing positions to test. */
+    private static final long SEED = 42;
+
+    /** Number of positions tested. */
+    private static final int TRIALS = 5000;
+
+}
@@ -0,0 +1,107 @@
+package qirkat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+
+import static qirkat.PieceColor.*;
+
+/** A set of Tablebases covering every position with at most some total
+ *  number of pieces (see maxPieces()).  A set may be shared by any number
+ *  of threads.
+ *  @author Noah Alcus
+ */
+class Tablebases {
+
+    /** Value returned by probe for a position not in any of my tables. */
+    static final int NONE = -1;
+
+    /** Return the set of the tables in DIRECTORY, which are shared with
+     *  other callers asking for the same DIRECTORY.  Tables written to
+     *  DIRECTORY since an earlier call are added to the shared set. */
+    static synchronized Tablebases open(File directory) {
+        String path;
+        try {
+            path = directory.getCanonicalPath();
+        } catch (IOException excp) {
+            path = directory.getAbsolutePath();
+        }
+        Tablebases result = _opened.get(path);
+        if (result == null) {
+            result = new Tablebases();
+            _opened.put(path, result);
+        }
+        result.load(directory);
+        return result;
+    }
+
+    /** An empty set. */
+    Tablebases() {
+        _maxPieces = 1;
+    }
+
+    /** Add to me each table in DIRECTORY that I do not already have. */
+    private synchronized void load(File directory) {
+        for (int n = 2; n <= Tablebase.MAX_PIECES; n += 1) {
+            for (int w = 1; w < n; w += 1) {
+                if (_tables[w][n - w] == null) {
+                    Tablebase table = Tablebase.open(directory, w, n - w);
+                    if (table != null) {
+                        add(table);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Add TABLE to me. */
+    synchronized void add(Tablebase table) {
+        _tables[table.white()][table.black()] = table;
+        int n;
+        for (n = _maxPieces + 1; n <= Tablebase.MAX_PIECES; n += 1) {
+            for (int w = 1; w < n; w += 1) {
+                if (_tables[w][n - w] == null) {
+                    return;
+                }
+            }
+            _maxPieces = n;
+        }
+    }
+
+    /** Return the largest N such that I can value every position with N
+     *  or fewer pieces. */
+    int maxPieces() {
+        return _maxPieces;
+    }
+
+    /** Return the entry (see Tablebase) for POSITION, or NONE if it has
+     *  more than maxPieces() pieces.  A position in which one player has
+     *  no pieces is valued directly: the player to move loses at once if
+     *  that player cannot move, and otherwise wins with any move. */
+    int probe(Position position) {
+        int white = position.pieces(WHITE), black = position.pieces(BLACK);
+        int w = Integer.bitCount(white), b = Integer.bitCount(black);
+        if (w + b > _maxPieces) {
+            return NONE;
+        } else if (w == 0 || b == 0) {
+            return position.hasAnyMove() ? Tablebase.entry(Tablebase.WIN, 1)
+                : Tablebase.entry(Tablebase.LOSS, 0);
+        }
+        return _tables[w][b].get(Tablebase.index(white, black,
+                                                 position.noLeft(),
+                                                 position.noRight(),
+                                                 position.whoseMove()));
+    }
+
+    /** Sets already opened, by canonical directory name. */
+    private static HashMap<String, Tablebases> _opened = new HashMap<>();
+
+    /** _tables[W][B] is the table for W white and B black pieces, or null
+     *  if I have none. */
+    private final Tablebase[][] _tables =
+        new Tablebase[Tablebase.MAX_PIECES + 1][Tablebase.MAX_PIECES + 1];
+
+    /** See maxPieces(). */
+    private volatile int _maxPieces;
+
+}
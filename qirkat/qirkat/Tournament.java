@@ -0,0 +1,598 @@
+package qirkat;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static qirkat.PieceColor.*;
+
+/** A match between two engines, A and B, which plays many games at once
+ *  without any display, and estimates the difference in their strengths.
+ *
+ *  The games are played in pairs.  Both games of a pair start from the
+ *  same opening, made of random moves from the initial position, with
+ *  each engine playing white in one of them.  The openings of different
+ *  pairs lead to different positions, since otherwise two pairs might
+ *  repeat the same games.  Each game has its own
+ *  Board, Game, and players.  The result of each game is written to a
+ *  results file as it finishes, and the running score is reported,
+ *  with an estimate of the Elo difference between A and B.
+ *
+ *  Optionally, a sequential probability ratio test (SPRT) decides
+ *  between the hypotheses that A is ELO0 and ELO1 Elo points stronger
+ *  than B, with error rates ALPHA (of accepting ELO1 when ELO0 holds)
+ *  and BETA (of accepting ELO0 when ELO1 holds).  The match stops
+ *  starting games as soon as the test accepts one of them.
+ *  @author Noah Alcus
+ */
+class Tournament {
+
+    /** Play a match as directed by ARGS (see usage()), reporting to the
+     *  standard output. */
+    public static void main(String[] args) {
+        Tournament match = new Tournament();
+        for (String arg : args) {
+            if (!match.parse(arg)) {
+                usage();
+                return;
+            }
+        }
+        try {
+            match.run(new TextReporter());
+        } catch (IOException excp) {
+            System.err.printf("Could not write results: %s%n",
+                              excp.getMessage());
+        }
+    }
+
+    /** Give usage message. */
+    private static void usage() {
+        System.err.println(
+            "Usage: java qirkat.Tournament [--games=N] [--concurrency=N]"
+            + " [--openings=PLIES]\n"
+            + "           [--seed=N] [--sprt=ELO0,ELO1] [--alpha=P]"
+            + " [--beta=P] [--results=FILE]\n"
+            + "           [A:ENGINE] [B:ENGINE] [OPTION ...]"
+            + " [A:OPTION ...] [B:OPTION ...]\n"
+            + "ENGINE is 'ai' or 'mcts'.  Each OPTION is a search option"
+            + " (--NAME=VALUE) as for\n"
+            + "qirkat.Main, applying to both engines or only to A or B.");
+    }
+
+    /** A match with default parameters, between two alpha-beta engines
+     *  with default search options. */
+    Tournament() {
+        _engines = new Engine[] { new Engine(), new Engine() };
+        _games = DEFAULT_GAMES;
+        _concurrency = Runtime.getRuntime().availableProcessors();
+        _openingPlies = DEFAULT_OPENING_PLIES;
+        _alpha = _beta = DEFAULT_ERROR_RATE;
+        _results = new File(DEFAULT_RESULTS);
+    }
+
+    /** If ARG is an argument that I recognize (see usage()), set the
+     *  corresponding parameter and return true.  Otherwise return
+     *  false. */
+    boolean parse(String arg) {
+        Matcher mat = SIDE_PATTERN.matcher(arg);
+        if (mat.matches()) {
+            Engine engine = _engines[mat.group(1).equals("A") ? 0 : 1];
+            return engine.parse(mat.group(2));
+        }
+        mat = OPTION_PATTERN.matcher(arg);
+        if (!mat.matches()) {
+            return false;
+        }
+        String value = mat.group(2);
+        try {
+            switch (mat.group(1)) {
+            case "games":
+                _games = positive(Integer.parseInt(value));
+                return true;
+            case "concurrency":
+                _concurrency = positive(Integer.parseInt(value));
+                return true;
+            case "openings":
+                _openingPlies = Integer.parseInt(value);
+                return _openingPlies >= 0;
+            case "seed":
+                _seed = Long.parseLong(value);
+                return true;
+            case "sprt":
+                String[] bounds = value.split(",");
+                if (bounds.length != 2) {
+                    return false;
+                }
+                _elo0 = Double.parseDouble(bounds[0]);
+                _elo1 = Double.parseDouble(bounds[1]);
+                _sprt = _elo0 < _elo1;
+                return _sprt;
+            case "alpha":
+                _alpha = probability(Double.parseDouble(value));
+                return true;
+            case "beta":
+                _beta = probability(Double.parseDouble(value));
+                return true;
+            case "results":
+                _results = new File(value);
+                return true;
+            default:
+                return _engines[0].parse(arg) && _engines[1].parse(arg);
+            }
+        } catch (IllegalArgumentException excp) {
+            return false;
+        }
+    }
+
+    /** Return N, checking that it is positive. */
+    private static int positive(int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("must be positive");
+        }
+        return n;
+    }
+
+    /** Return P, checking that it is a probability strictly between 0 and
+     *  0.5. */
+    private static double probability(double p) {
+        if (!(p > 0.0 && p < 0.5)) {
+            throw new IllegalArgumentException("bad error rate");
+        }
+        return p;
+    }
+
+    /** Play my games, with up to my concurrency of them at once, writing
+     *  each result to my results file as it finishes, and reporting the
+     *  score from time to time and at the end to OUT.  Each pair of games
+     *  has a different opening position.  If there are too few of those
+     *  for my games, report that to OUT and play one pair from each.
+     *  Return the final score (for engine A). */
+    Score run(Reporter out) throws IOException {
+        Move[][] openings = openings((_games + 1) / 2);
+        int count = Math.min(_games, 2 * openings.length);
+        if (count < _games) {
+            out.errMsg("Only %d distinct openings of %d moves found;"
+                       + " playing %d games.", openings.length,
+                       _openingPlies, count);
+        }
+        Score score = new Score();
+        _stopped = false;
+        ExecutorService pool = Executors.newFixedThreadPool(_concurrency);
+        try (PrintWriter results =
+             new PrintWriter(new FileWriter(_results))) {
+            results.printf("# A: %s%n# B: %s%n", _engines[0], _engines[1]);
+            results.println("# game\twhite\tresult\tmoves\topening");
+            ExecutorCompletionService<Result> games =
+                new ExecutorCompletionService<>(pool);
+            for (int i = 0; i < count; i += 1) {
+                int game = i;
+                games.submit(() -> play(game, openings[game / 2]));
+            }
+            for (int i = 0; i < count; i += 1) {
+                Result result = games.take().get();
+                if (result == null) {
+                    continue;
+                }
+                score.add(result._score);
+                results.println(result);
+                results.flush();
+                if (score.games() % REPORT_INTERVAL == 0) {
+                    out.moveMsg("%s", summary(score));
+                }
+                if (_sprt && !_stopped && decision(score) != null) {
+                    _stopped = true;
+                }
+            }
+            String summary = summary(score);
+            results.printf("# %s%n", summary);
+            out.moveMsg("%s", summary);
+            if (_sprt) {
+                String decision = decision(score);
+                results.printf("# SPRT: %s%n",
+                               decision == null ? "no decision" : decision);
+                out.moveMsg("SPRT: %s",
+                            decision == null ? "no decision" : decision);
+            }
+        } catch (InterruptedException | ExecutionException excp) {
+            throw new IllegalStateException(excp);
+        } finally {
+            pool.shutdown();
+        }
+        return score;
+    }
+
+    /** Return a description of SCORE: the games won, lost, and drawn by
+     *  A, the Elo estimate, and, if testing, the log-likelihood ratio and
+     *  its bounds. */
+    private String summary(Score score) {
+        String result = String.format("Games: %d, %s, Elo %.1f +/- %.1f",
+                                      score.games(), score, score.elo(),
+                                      score.eloMargin());
+        if (_sprt) {
+            result += String.format(", LLR %.2f (%.2f, %.2f)",
+                                    score.llr(_elo0, _elo1),
+                                    lowerBound(), upperBound());
+        }
+        return result;
+    }
+
+    /** Return the hypothesis accepted by my SPRT given SCORE, or null if
+     *  neither is accepted yet. */
+    private String decision(Score score) {
+        double llr = score.llr(_elo0, _elo1);
+        if (llr >= upperBound()) {
+            return String.format("H1 accepted (elo >= %.1f)", _elo1);
+        } else if (llr <= lowerBound()) {
+            return String.format("H0 accepted (elo <= %.1f)", _elo0);
+        } else {
+            return null;
+        }
+    }
+
+    /** Return the log-likelihood ratio below which my SPRT accepts H0. */
+    private double lowerBound() {
+        return Math.log(_beta / (1 - _alpha));
+    }
+
+    /** Return the log-likelihood ratio above which my SPRT accepts H1. */
+    private double upperBound() {
+        return Math.log((1 - _beta) / _alpha);
+    }
+
+    /** Return up to N lines of _openingPlies random moves from the initial
+     *  position, chosen with random numbers seeded from my seed, that
+     *  lead to distinct positions.  Fewer are returned if
+     *  OPENING_ATTEMPTS lines in a row fail to find a new position. */
+    private Move[][] openings(int n) {
+        Random random = new Random(_seed);
+        Position position = new Position();
+        HashSet<Long> seen = new HashSet<>();
+        ArrayList<Move[]> result = new ArrayList<>();
+        int failures = 0;
+        while (result.size() < n && failures < OPENING_ATTEMPTS) {
+            Move[] line = opening(random, position);
+            if (seen.add(position.key())) {
+                result.add(line);
+                failures = 0;
+            } else {
+                failures += 1;
+            }
+        }
+        return result.toArray(new Move[0][]);
+    }
+
+    /** Return a line of _openingPlies random moves from the initial
+     *  position, chosen with RANDOM, that does not end the game, and set
+     *  POSITION to the position it leads to. */
+    private Move[] opening(Random random, Position position) {
+        MoveList moves = new MoveList();
+        Move[] result = new Move[_openingPlies];
+        while (true) {
+            position.clear();
+            int k;
+            for (k = 0; k < result.length && !position.gameOver(); k += 1) {
+                position.getMoves(moves);
+                result[k] = moves.move(random.nextInt(moves.size()));
+                position.makeMove(result[k]);
+            }
+            if (k == result.length && !position.gameOver()) {
+                return result;
+            }
+        }
+    }
+
+    /** Play game #GAME, starting with the moves OPENING, unless the match
+     *  has been stopped.  Engine A plays white in even-numbered games.
+     *  Return the result, or null if the game was not played. */
+    private Result play(int game, Move[] opening) {
+        if (_stopped) {
+            return null;
+        }
+        Board board = new Board();
+        for (Move move : opening) {
+            board.makeMove(move);
+        }
+        Engine white = _engines[game % 2], black = _engines[1 - game % 2];
+        Game match = new Game(board, null, SILENT, white._options);
+        match.doSeed(new String[] { Long.toString(_seed + game) });
+        Player whitePlayer = white.create(match, WHITE),
+            blackPlayer = black.create(match, BLACK);
+        int moves;
+        for (moves = 0; !board.gameOver() && moves < MAX_MOVES;
+             moves += 1) {
+            Player player =
+                board.whoseMove() == WHITE ? whitePlayer : blackPlayer;
+            board.makeMove(player.myMove());
+        }
+        whitePlayer.stop();
+        blackPlayer.stop();
+        double whiteScore;
+        if (!board.gameOver()) {
+            whiteScore = 0.5;
+        } else {
+            whiteScore = board.whoseMove() == BLACK ? 1.0 : 0.0;
+        }
+        return new Result(game, opening, moves,
+                          game % 2 == 0 ? whiteScore : 1.0 - whiteScore);
+    }
+
+    /** One of the engines in a match. */
+    private static class Engine {
+
+        /** An alpha-beta engine with default search options. */
+        Engine() {
+            _options = new SearchOptions();
+        }
+
+        /** If ARG is an engine name or a search option, set my engine or
+         *  option accordingly and return true.  Otherwise return
+         *  false. */
+        boolean parse(String arg) {
+            switch (arg) {
+            case "ai":
+                _mcts = false;
+                return true;
+            case "mcts":
+                _mcts = true;
+                return true;
+            default:
+                if (_options.parse(arg)) {
+                    _description.append(' ').append(arg);
+                    return true;
+                }
+                return false;
+            }
+        }
+
+        /** Return a new player of this engine playing COLOR in GAME. */
+        Player create(Game game, PieceColor color) {
+            if (_mcts) {
+                return new MCTS(game, color, _options);
+            } else {
+                return new AI(game, color, _options.maxDepth(), _options);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return (_mcts ? "mcts" : "ai") + _description;
+        }
+
+        /** True iff I choose moves by Monte Carlo tree search. */
+        private boolean _mcts;
+
+        /** My search options. */
+        private final SearchOptions _options;
+
+        /** The options set, as given. */
+        private final StringBuilder _description = new StringBuilder();
+
+    }
+
+    /** The result of one game. */
+    private static class Result {
+
+        /** The result of game #GAME, which started with OPENING and lasted
+         *  MOVES more moves, and in which A scored SCORE. */
+        Result(int game, Move[] opening, int moves, double score) {
+            _game = game;
+            _opening = opening;
+            _moves = moves;
+            _score = score;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder line = new StringBuilder();
+            line.append(_game).append('\t')
+                .append(_game % 2 == 0 ? "A" : "B").append('\t');
+            double whiteScore = _game % 2 == 0 ? _score : 1.0 - _score;
+            if (whiteScore == 1.0) {
+                line.append("1-0");
+            } else if (whiteScore == 0.0) {
+                line.append("0-1");
+            } else {
+                line.append("1/2-1/2");
+            }
+            line.append('\t').append(_moves).append('\t');
+            for (int k = 0; k < _opening.length; k += 1) {
+                line.append(k == 0 ? "" : " ").append(_opening[k]);
+            }
+            return line.toString();
+        }
+
+        /** The number of the game. */
+        private final int _game;
+
+        /** The opening moves. */
+        private final Move[] _opening;
+
+        /** The number of moves after the opening. */
+        private final int _moves;
+
+        /** A's score: 1 for a win, 0.5 for a draw, 0 for a loss. */
+        private final double _score;
+
+    }
+
+    /** The games won, lost, and drawn by one engine against another. */
+    static class Score {
+
+        /** Record a game in which I scored SCORE (1, 0.5, or 0). */
+        void add(double score) {
+            if (score == 1.0) {
+                _wins += 1;
+            } else if (score == 0.0) {
+                _losses += 1;
+            } else {
+                _draws += 1;
+            }
+        }
+
+        /** Return the number of games recorded. */
+        int games() {
+            return _wins + _losses + _draws;
+        }
+
+        /** Return my mean score per game. */
+        double score() {
+            return (_wins + 0.5 * _draws) / games();
+        }
+
+        /** Return the Elo difference corresponding to my mean score,
+         *  which is limited to a finite value when I have won or lost
+         *  every game. */
+        double elo() {
+            return elo(clamp(score()));
+        }
+
+        /** Return half the width of the 95% confidence interval of
+         *  elo(). */
+        double eloMargin() {
+            double margin = Z_95 * Math.sqrt(variance() / games());
+            return (elo(clamp(score() + margin))
+                    - elo(clamp(score() - margin))) / 2;
+        }
+
+        /** Return SCORE, limited to lie between MIN_SCORE and
+         *  1 - MIN_SCORE. */
+        private static double clamp(double score) {
+            return Math.min(Math.max(score, MIN_SCORE), 1.0 - MIN_SCORE);
+        }
+
+        /** Return the log-likelihood ratio of my results under the
+         *  hypotheses that the Elo difference is ELO1 and that it is ELO0.
+         *  This is the usual normal approximation, in which the score
+         *  per game has the variance observed. */
+        double llr(double elo0, double elo1) {
+            double variance = variance();
+            if (games() == 0 || variance == 0.0) {
+                return 0.0;
+            }
+            double s0 = expectedScore(elo0), s1 = expectedScore(elo1);
+            return (s1 - s0) * (2 * score() - s0 - s1) * games()
+                / (2 * variance);
+        }
+
+        /** Return the variance of my score per game. */
+        private double variance() {
+            double s = score();
+            return (_wins * (1 - s) * (1 - s) + _losses * s * s
+                    + _draws * (0.5 - s) * (0.5 - s)) / games();
+        }
+
+        /** Return the Elo difference at which the expected score is
+         *  SCORE. */
+        static double elo(double score) {
+            return 400 * Math.log10(score / (1 - score));
+        }
+
+        /** Return the expected score at an Elo difference of ELO. */
+        static double expectedScore(double elo) {
+            return 1 / (1 + Math.pow(10, -elo / 400));
+        }
+
+        @Override
+        public String toString() {
+            return String.format("+%d -%d =%d", _wins, _losses, _draws);
+        }
+
+        /** Normal deviate for a two-sided 95% confidence interval. */
+        private static final double Z_95 = 1.959964;
+
+        /** Least score used in computing Elo differences. */
+        private static final double MIN_SCORE = 1e-6;
+
+        /** Numbers of games won, lost, and drawn. */
+        private int _wins, _losses, _draws;
+
+    }
+
+    /** A Reporter that discards everything. */
+    private static final Reporter SILENT = new Reporter() {
+        @Override
+        public void errMsg(String format, Object... operands) {
+        }
+
+        @Override
+        public void outcomeMsg(String format, Object... operands) {
+        }
+
+        @Override
+        public void moveMsg(String format, Object... operands) {
+        }
+    };
+
+    /** Syntax of a tournament option. */
+    private static final Pattern OPTION_PATTERN =
+        Pattern.compile("--([a-z-]+)=(\\S+)");
+
+    /** Syntax of an argument for one engine. */
+    private static final Pattern SIDE_PATTERN =
+        Pattern.compile("([AB]):(\\S+)");
+
+    /** Default number of games. */
+    static final int DEFAULT_GAMES = 100;
+
+    /** Default number of random opening moves. */
+    static final int DEFAULT_OPENING_PLIES = 4;
+
+    /** Default SPRT error rates. */
+    static final double DEFAULT_ERROR_RATE = 0.05;
+
+    /** Default results file. */
+    static final String DEFAULT_RESULTS = "tournament.txt";
+
+    /** Number of random lines in a row that may fail to reach a new
+     *  position before the search for distinct openings ends. */
+    private static final int OPENING_ATTEMPTS = 1000;
+
+    /** Number of games between reports of the score. */
+    private static final int REPORT_INTERVAL = 20;
+
+    /** Most moves in a game after its opening, beyond which it is
+     *  drawn. */
+    private static final int MAX_MOVES = 1000;
+
+    /** The two engines, A and B. */
+    private final Engine[] _engines;
+
+    /** Number of games to play. */
+    private int _games;
+
+    /** Number of games played at once. */
+    private int _concurrency;
+
+    /** Number of random opening moves. */
+    private int _openingPlies;
+
+    /** Seed for the openings and the games' random numbers. */
+    private long _seed;
+
+    /** True iff I run an SPRT between Elo differences _elo0 and _elo1,
+     *  with error rates _alpha and _beta. */
+    private boolean _sprt;
+
+    /** SPRT hypotheses. */
+    private double _elo0, _elo1;
+
+    /** SPRT error rates. */
+    private double _alpha, _beta;
+
+    /** File to which results are written. */
+    private File _results;
+
+    /** True iff no more games are to be started. */
+    private volatile boolean _stopped;
+
+}
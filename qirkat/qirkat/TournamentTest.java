@@ -0,0 +1,109 @@
+package qirkat;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/** Tests of tournaments.
+ *  @author Noah Alcus
+ */
+public class TournamentTest {
+
+    /** Return a score with WINS wins, LOSSES losses, and DRAWS draws. */
+    private static Tournament.Score score(int wins, int losses,
+                                          int draws) {
+        Tournament.Score result = new Tournament.Score();
+        for (int i = 0; i < wins; i += 1) {
+            result.add(1.0);
+        }
+        for (int i = 0; i < losses; i += 1) {
+            result.add(0.0);
+        }
+        for (int i = 0; i < draws; i += 1) {
+            result.add(0.5);
+        }
+        return result;
+    }
+
+    @Test
+    public void testElo() {
+        assertEquals(0.0, score(10, 10, 5).elo(), 1e-9);
+        assertEquals(190.85, score(75, 25, 0).elo(), 0.01);
+        assertEquals(-190.85, score(25, 75, 0).elo(), 0.01);
+        assertEquals(0.5, Tournament.Score.expectedScore(0), 1e-9);
+        assertTrue(score(75, 25, 0).eloMargin()
+                   > score(750, 250, 0).eloMargin());
+        for (Tournament.Score all : new Tournament.Score[] {
+                score(10, 0, 0), score(0, 10, 0) }) {
+            assertFalse(Double.isInfinite(all.elo()));
+            assertFalse(Double.isNaN(all.eloMargin()));
+            assertFalse(Double.isInfinite(all.eloMargin()));
+        }
+        assertTrue(score(10, 0, 0).elo() > 0);
+    }
+
+    @Test
+    public void testLLR() {
+        assertTrue(score(60, 40, 0).llr(0, 10) > 0);
+        assertTrue(score(40, 60, 0).llr(0, 10) < 0);
+        assertTrue(score(600, 400, 0).llr(0, 10)
+                   > score(60, 40, 0).llr(0, 10));
+        assertEquals(0.0, score(0, 0, 10).llr(0, 10), 1e-9);
+    }
+
+    @Test
+    public void testRun() throws IOException {
+        File results = File.createTempFile("qirkat-match", ".txt");
+        results.deleteOnExit();
+        Tournament match = new Tournament();
+        for (String arg : new String[] {
+                "--games=6", "--concurrency=3", "--openings=2",
+                "--results=" + results, "--hash=1", "--time=0",
+                "A:--depth=3", "B:--depth=1" }) {
+            assertTrue(arg, match.parse(arg));
+        }
+        assertFalse(match.parse("--games=0"));
+        assertFalse(match.parse("C:--depth=3"));
+        assertFalse(match.parse("A:--depth=x"));
+        Tournament.Score score = match.run(new TextReporter());
+        assertEquals(6, score.games());
+        List<String> lines = Files.readAllLines(results.toPath());
+        int games = 0;
+        for (String line : lines) {
+            if (!line.startsWith("#")) {
+                games += 1;
+                assertEquals(5, line.split("\t").length);
+            }
+        }
+        assertEquals(6, games);
+    }
+
+    @Test
+    public void testDistinctOpenings() throws IOException {
+        File results = File.createTempFile("qirkat-match", ".txt");
+        results.deleteOnExit();
+        Tournament match = new Tournament();
+        for (String arg : new String[] {
+                "--games=20", "--concurrency=2", "--openings=1",
+                "--results=" + results, "--hash=1", "--time=0",
+                "--depth=1" }) {
+            assertTrue(arg, match.parse(arg));
+        }
+        assertEquals(8, match.run(new TextReporter()).games());
+        HashSet<String> openings = new HashSet<>();
+        for (String line : Files.readAllLines(results.toPath())) {
+            if (!line.startsWith("#")) {
+                String[] fields = line.split("\t");
+                int game = Integer.parseInt(fields[0]);
+                assertTrue(openings.add(fields[4] + " " + game % 2));
+            }
+        }
+    }
+
+}
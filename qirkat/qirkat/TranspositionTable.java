@@ -0,0 +1,198 @@
+package qirkat;
+
+/** A fixed-size table of the results of previous searches, indexed by
+ *  position key (see Position.key()).  The table is divided into a
+ *  power-of-two number of two-entry buckets.  The first entry of each
+ *  bucket keeps the deepest result stored there during the current
+ *  search; the second always receives results that do not displace the
+ *  first, so that recent shallow results are not lost.
+ *
+ *  Best moves are kept in packed form (see Move.pack()), so that an entry
+ *  occupies three longs and refers to no other objects.
+ *
+ *  A table may be shared by several searching threads without locking.
+ *  Each entry's key is stored exclusive-or'ed with its data and move, so
+ *  that an entry whose parts were written by different threads simply
+ *  fails to match.  Moves found in the table are only hints, and must be
+ *  checked against the legal moves before use.
+ *  @author Noah Alcus
+ */
+class TranspositionTable {
+
+    /** Bound type of a stored score that is the exact value. */
+    static final int EXACT = 0;
+    /** Bound type of a stored score that is a lower bound on the value
+     *  (the search failed high). */
+    static final int LOWER = 1;
+    /** Bound type of a stored score that is an upper bound on the value
+     *  (the search failed low). */
+    static final int UPPER = 2;
+
+    /** Size of one entry in bytes: its key, packed data, and packed
+     *  move. */
+    static final int ENTRY_BYTES = 24;
+
+    /** A table occupying at most about MEGABYTES megabytes (and at least
+     *  one bucket). */
+    TranspositionTable(int megabytes) {
+        long entries = ((long) megabytes << 20) / ENTRY_BYTES;
+        int buckets = 1;
+        while (2L * buckets * BUCKET_SIZE <= entries
+               && buckets < MAX_BUCKETS) {
+            buckets *= 2;
+        }
+        _mask = buckets - 1;
+        _keys = new long[buckets * BUCKET_SIZE];
+        _data = new long[buckets * BUCKET_SIZE];
+        _moves = new long[buckets * BUCKET_SIZE];
+    }
+
+    /** Return the number of entries in this table. */
+    int size() {
+        return _keys.length;
+    }
+
+    /** Indicate that a new search is starting, so that the results of
+     *  earlier ones may be replaced regardless of their depth, and reset
+     *  the statistics. */
+    void newSearch() {
+        _generation = (_generation + 1) & GENERATION_MASK;
+        _probes = _hits = 0;
+    }
+
+    /** Remove all entries and reset the statistics. */
+    void clear() {
+        java.util.Arrays.fill(_keys, 0);
+        java.util.Arrays.fill(_data, 0);
+        java.util.Arrays.fill(_moves, 0);
+        _probes = _hits = 0;
+    }
+
+    /** If there is an entry holding KEY, set ENTRY[0] to its packed data
+     *  and ENTRY[1] to the packed form of its best move (or Move.NO_MOVE
+     *  if none), and return true.  Otherwise return false.  Both are the
+     *  values read when the entry was checked against KEY, since other
+     *  threads may overwrite the entry at any time; use the static
+     *  accessors on ENTRY[0]. */
+    boolean probe(long key, long[] entry) {
+        _probes += 1;
+        int k = bucket(key);
+        for (int i = k; i < k + BUCKET_SIZE; i += 1) {
+            long data = _data[i], move = _moves[i];
+            if ((_keys[i] ^ data ^ move) == key && data != 0) {
+                _hits += 1;
+                entry[0] = data;
+                entry[1] = move;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Return the search depth in the packed entry DATA. */
+    static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & DEPTH_MASK;
+    }
+
+    /** Return the bound type (EXACT, LOWER, or UPPER) in the packed entry
+     *  DATA. */
+    static int bound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & BOUND_MASK;
+    }
+
+    /** Return the score in the packed entry DATA. */
+    static int score(long data) {
+        return (int) data;
+    }
+
+    /** Record that a search of the position with KEY to DEPTH found
+     *  SCORE, of type BOUND, with best move MOVE (in packed form, or
+     *  Move.NO_MOVE if none). */
+    void store(long key, int depth, int bound, int score, long move) {
+        int k = bucket(key);
+        long first = _data[k];
+        int i;
+        if ((_keys[k] ^ first ^ _moves[k]) == key || age(first) != _generation
+            || depth >= depth(first)) {
+            i = k;
+        } else {
+            i = k + 1;
+        }
+        if (move == Move.NO_MOVE && (_keys[i] ^ _data[i] ^ _moves[i]) == key) {
+            move = _moves[i];
+        }
+        long data = (score & 0xffffffffL)
+            | ((long) Math.min(depth, DEPTH_MASK) << DEPTH_SHIFT)
+            | ((long) bound << BOUND_SHIFT)
+            | ((long) _generation << GENERATION_SHIFT)
+            | VALID;
+        _moves[i] = move;
+        _data[i] = data;
+        _keys[i] = key ^ data ^ move;
+    }
+
+    /** Return the number of calls to probe since the last newSearch or
+     *  clear.  This and hits() are approximate when several threads use
+     *  the table. */
+    long probes() {
+        return _probes;
+    }
+
+    /** Return the number of successful calls to probe since the last
+     *  newSearch or clear. */
+    long hits() {
+        return _hits;
+    }
+
+    /** Return the percentage of probes since the last newSearch or clear
+     *  that found an entry. */
+    double hitRate() {
+        return _probes == 0 ? 0.0 : 100.0 * _hits / _probes;
+    }
+
+    /** Return the index of the first entry of KEY's bucket. */
+    private int bucket(long key) {
+        return ((int) (key ^ (key >>> 32)) & _mask) * BUCKET_SIZE;
+    }
+
+    /** Return the generation in the packed entry DATA. */
+    private static int age(long data) {
+        return (int) (data >>> GENERATION_SHIFT) & GENERATION_MASK;
+    }
+
+    /** Number of entries per bucket. */
+    private static final int BUCKET_SIZE = 2;
+
+    /** Largest number of buckets. */
+    private static final int MAX_BUCKETS = 1 << 28;
+
+    /** Layout of the packed data of an entry: the score in the low 32
+     *  bits, then the depth, bound type and generation, and a bit that
+     *  is on in all used entries. */
+    private static final int
+        DEPTH_SHIFT = 32, DEPTH_MASK = 0xff,
+        BOUND_SHIFT = 40, BOUND_MASK = 0x3,
+        GENERATION_SHIFT = 42, GENERATION_MASK = 0xff;
+
+    /** Bit set in the data of every used entry. */
+    private static final long VALID = 1L << 63;
+
+    /** Mask selecting a bucket number from a hash. */
+    private final int _mask;
+
+    /** The keys of the entries. */
+    private final long[] _keys;
+
+    /** The packed depth, bound, score, and generation of the entries. */
+    private final long[] _data;
+
+    /** The packed best moves of the entries. */
+    private final long[] _moves;
+
+    /** The current search generation. */
+    private volatile int _generation;
+
+    /** Statistics: number of probes and of successful ones. */
+    private long _probes, _hits;
+
+}
@@ -0,0 +1,58 @@
+package qirkat;
+
+import java.util.Random;
+
+import static qirkat.PieceColor.*;
+
+/** Random 64-bit keys used to hash Qirkat positions.  The key of a
+ *  position is the exclusive or of one key for each occupied square
+ *  (by color), one for each piece barred from moving left or right, and
+ *  BLACK_TO_MOVE if it is black's turn, so that it may be updated
+ *  incrementally as pieces and flags change.
+ *  @author Noah Alcus
+ */
+class Zobrist {
+
+    /** PIECES[C][K] is the key for a piece with ordinal C on square K.
+     *  The row for EMPTY is all zeros. */
+    static final long[][] PIECES =
+        new long[PieceColor.values().length][Bitboard.SQUARES];
+
+    /** Keys for a piece on square K that may not move left (NO_LEFT[K])
+     *  or right (NO_RIGHT[K]). */
+    static final long[]
+        NO_LEFT = new long[Bitboard.SQUARES],
+        NO_RIGHT = new long[Bitboard.SQUARES];
+
+    /** Key included iff black is to move. */
+    static final long BLACK_TO_MOVE;
+
+    /** Return the exclusive or of KEYS[K] for each square K in MASK. */
+    static long squares(long[] keys, int mask) {
+        long result;
+        result = 0;
+        for (; mask != 0; mask &= mask - 1) {
+            result ^= keys[Bitboard.first(mask)];
+        }
+        return result;
+    }
+
+    /** Seed for the key generator, fixed so that keys are the same on
+     *  every run. */
+    private static final long SEED = 0x51_4b_41_54L;
+
+    static {
+        Random keys = new Random(SEED);
+        for (PieceColor c : new PieceColor[] { WHITE, BLACK }) {
+            for (int k = 0; k < Bitboard.SQUARES; k += 1) {
+                PIECES[c.ordinal()][k] = keys.nextLong();
+            }
+        }
+        for (int k = 0; k < Bitboard.SQUARES; k += 1) {
+            NO_LEFT[k] = keys.nextLong();
+            NO_RIGHT[k] = keys.nextLong();
+        }
+        BLACK_TO_MOVE = keys.nextLong();
+    }
+
+}